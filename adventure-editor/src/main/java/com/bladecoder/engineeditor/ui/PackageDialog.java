@@ -26,6 +26,7 @@ import java.util.Properties;
 
 import org.apache.commons.io.FileUtils;
 
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.SelectBox;
@@ -38,10 +39,16 @@ import com.badlogicgames.packr.Packr;
 import com.badlogicgames.packr.PackrConfig;
 import com.badlogicgames.packr.PackrConfig.Platform;
 import com.bladecoder.engine.actions.Param.Type;
+import com.bladecoder.engine.assets.AssetArchive;
+import com.bladecoder.engine.assets.AssetManifest;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.ChapterBundle;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engineeditor.Ctx;
+import com.bladecoder.engineeditor.common.EditorLogger;
 import com.bladecoder.engineeditor.common.Message;
 import com.bladecoder.engineeditor.common.RunProccess;
+import com.bladecoder.engineeditor.model.Project;
 import com.bladecoder.engineeditor.ui.panels.EditDialog;
 import com.bladecoder.engineeditor.ui.panels.FileInputPanel;
 import com.bladecoder.engineeditor.ui.panels.InputPanel;
@@ -50,6 +57,15 @@ import com.bladecoder.engineeditor.ui.panels.InputPanelFactory;
 public class PackageDialog extends EditDialog {
 	private static final String ARCH_PROP = "package.arch";
 	private static final String DIR_PROP = "package.dir";
+	private static final String PACK_ASSETS_PROP = "package.packAssets";
+
+	// generated assets added to the package, relative to the project folder.
+	// The build scripts add them with the 'packageAssets' property.
+	private static final String PACKAGE_ASSETS_DIR = "build/package-assets";
+
+	// list of the assets replaced by the generated ones, inside
+	// PACKAGE_ASSETS_DIR
+	private static final String EXCLUDED_ASSETS_FILE = "excluded-assets.txt";
 
 	private static final String DESKTOP_LAUNCHER = "DesktopLauncher.java";
 
@@ -61,6 +77,7 @@ public class PackageDialog extends EditDialog {
 
 	private InputPanel arch;
 	private InputPanel dir;
+	private InputPanel packAssets;
 	private InputPanel type;
 	private InputPanel os;
 	private InputPanel linux64JRE;
@@ -89,6 +106,9 @@ public class PackageDialog extends EditDialog {
 				ARCHS, true);
 		dir = new FileInputPanel(skin, "Output Directory", "Select the output directory to put the package",
 				FileInputPanel.DialogType.DIRECTORY);
+		packAssets = InputPanelFactory.createInputPanel(skin, "Pack Assets",
+				"Packs the assets in one archive per resolution. Reduces the startup time in Android.", Type.BOOLEAN,
+				true, "false");
 		type = InputPanelFactory.createInputPanel(skin, "Type", "Select the package type", TYPES, true);
 		os = InputPanelFactory.createInputPanel(skin, "OS", "Select the OS of the package", OSS, true);
 		linux64JRE = new FileInputPanel(skin, "JRE.Linux64",
@@ -140,6 +160,7 @@ public class PackageDialog extends EditDialog {
 
 		addInputPanel(arch);
 		addInputPanel(dir);
+		addInputPanel(packAssets);
 
 		for (InputPanel i : options) {
 			addInputPanel(i);
@@ -157,6 +178,7 @@ public class PackageDialog extends EditDialog {
 
 		arch.setText(Ctx.project.getEditorConfig().getProperty(ARCH_PROP, ARCHS[0]));
 		dir.setText(Ctx.project.getEditorConfig().getProperty(DIR_PROP, ""));
+		packAssets.setText(Ctx.project.getEditorConfig().getProperty(PACK_ASSETS_PROP, "false"));
 
 		for (InputPanel i : options) {
 			String prop = Ctx.project.getEditorConfig().getProperty("package." + i.getTitle());
@@ -234,10 +256,13 @@ public class PackageDialog extends EditDialog {
 				} catch (Exception e) {
 					msg = "Error Generating package\n\n" + e.getMessage();
 					e.printStackTrace();
+				} finally {
+					FileUtils.deleteQuietly(new File(Ctx.project.getProjectDir(), PACKAGE_ASSETS_DIR));
 				}
 
 				Ctx.project.getEditorConfig().setProperty(ARCH_PROP, arch.getText());
 				Ctx.project.getEditorConfig().setProperty(DIR_PROP, dir.getText());
+				Ctx.project.getEditorConfig().setProperty(PACK_ASSETS_PROP, packAssets.getText());
 
 				for (InputPanel i : options) {
 					if (i.getText() != null)
@@ -261,6 +286,86 @@ public class PackageDialog extends EditDialog {
 
 	}
 
+	/**
+	 * Generates the assets added to the package in PACKAGE_ASSETS_DIR: the
+	 * chapter bundles, the asset manifests and, if 'pack', the asset archives.
+	 * The assets they replace are listed in EXCLUDED_ASSETS_FILE, so the build
+	 * script leaves them out of the package. The project assets are not
+	 * modified.
+	 *
+	 * @return The 'packageAssets' gradle parameter or an empty string if the
+	 *         build script does not support it.
+	 */
+	private String prepareAssets(String module, boolean pack) throws IOException {
+		File projectDir = Ctx.project.getProjectDir();
+		File buildScript = new File(projectDir, module + "/build.gradle");
+
+		// projects created with an older version of the editor
+		if (!FileUtils.readFileToString(buildScript, "UTF-8").contains("packageAssets")) {
+			EditorLogger.error("The " + module + " build script doesn't support the 'packageAssets' property."
+					+ " The chapter bundles and the packed assets are not generated.");
+			return "";
+		}
+
+		File assetsDir = new File(Ctx.project.getProjectPath() + Project.ASSETS_PATH);
+		File packageDir = new File(projectDir, PACKAGE_ASSETS_DIR);
+
+		FileUtils.deleteDirectory(packageDir);
+		packageDir.mkdirs();
+
+		List<String> excluded = bakeChapters(new File(packageDir, EngineAssetManager.MODEL_DIR));
+
+		if (pack) {
+			ArrayList<String> resolutions = new ArrayList<String>();
+			File[] uiDirs = new File(assetsDir, "ui").listFiles();
+
+			if (uiDirs != null) {
+				for (File f : uiDirs) {
+					try {
+						Float.parseFloat(f.getName());
+						resolutions.add(f.getName());
+					} catch (NumberFormatException e) {
+					}
+				}
+			}
+
+			excluded.addAll(AssetArchive.pack(assetsDir, resolutions, packageDir, excluded));
+		}
+
+		FileUtils.writeLines(new File(packageDir, EXCLUDED_ASSETS_FILE), "UTF-8", excluded, "\n");
+
+		return "-PpackageAssets=" + PACKAGE_ASSETS_DIR + " ";
+	}
+
+	/**
+	 * Generates the chapter bundles that the engine loads instead of the
+	 * .chapter.json files and the asset manifests of the chapters.
+	 *
+	 * @return The paths of the replaced .chapter.json files relative to the
+	 *         assets folder.
+	 */
+	private List<String> bakeChapters(File destDir) throws IOException {
+		String modelPath = Ctx.project.getModelPath();
+		FileHandle assetsDir = new FileHandle(Ctx.project.getProjectPath() + Project.ASSETS_PATH);
+		ArrayList<String> replaced = new ArrayList<String>();
+
+		for (String chapter : Ctx.project.getChapter().getChapters()) {
+			File f = new File(modelPath, chapter + EngineAssetManager.CHAPTER_EXT);
+
+			if (f.exists()) {
+				ChapterBundle.bake(new FileHandle(f),
+						new FileHandle(new File(destDir, chapter + EngineAssetManager.CHAPTER_BUNDLE_EXT)));
+
+				AssetManifest.build(new FileHandle(f), assetsDir)
+						.write(new FileHandle(new File(destDir, chapter + AssetManifest.MANIFEST_EXT)));
+
+				replaced.add(EngineAssetManager.MODEL_DIR + chapter + EngineAssetManager.CHAPTER_EXT);
+			}
+		}
+
+		return replaced;
+	}
+
 	private String packageAdv() throws IOException {
 		String msg = "Package generated SUCCESSFULLY";
 
@@ -275,7 +380,8 @@ public class PackageDialog extends EditDialog {
 			String jarDir = Ctx.project.getProjectDir().getAbsolutePath() + "/desktop/build/libs/";
 			String jarName = projectName + "-desktop-" + version.getText() + ".jar";
 
-			String error = genDesktopJar(projectName, versionParam, jarDir, jarName);
+			String error = genDesktopJar(projectName, versionParam + prepareAssets("desktop", false), jarDir,
+					jarName);
 			
 			if(error != null)
 				msg = error;
@@ -303,7 +409,12 @@ public class PackageDialog extends EditDialog {
 				}
 			}
 		} else if (arch.getText().equals("android")) {
-			String params = versionParam + "-PversionCode=" + versionCode.getText() + " " + "-Pkeystore="
+			// in the jar, the archives are compressed and reading an entry
+			// decompresses from the start, so they are only used in Android
+			// where they are stored uncompressed in the apk
+			String assetsParam = prepareAssets("android", Boolean.parseBoolean(packAssets.getText()));
+
+			String params = versionParam + assetsParam + "-PversionCode=" + versionCode.getText() + " " + "-Pkeystore="
 					+ androidKeyStore.getText() + " " + "-PstorePassword=" + androidKeyStorePassword.getText() + " "
 					+ "-Palias=" + androidKeyAlias.getText() + " " + "-PkeyPassword="
 					+ androidKeyAliasPassword.getText() + " ";
@@ -387,6 +498,8 @@ public class PackageDialog extends EditDialog {
 		setVisible(version, true);
 
 		String a = arch.getText();
+		setVisible(packAssets, a.equals("android"));
+
 		if (a.equals("desktop")) {
 			setVisible(type, true);
 			typeChanged();
@@ -17,12 +17,15 @@ package com.bladecoder.engine.actions;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.model.World.AssetState;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.Config;
+import com.bladecoder.engine.util.ScriptProfiler;
 
 /**
  * This is a queue to group all cb that must be triggered in the next iteration.
@@ -30,32 +33,97 @@ import com.bladecoder.engine.util.ActionCallbackSerialization;
  * 
  * All ActionCb must be called at once outside update methods of Actors.
  * 
+ * Only the render thread can call 'add()'. Background jobs (asset loading,
+ * path solving...) must use 'post()', the posted cb's are moved to the queue at
+ * the beginning of the next 'run()' in the same order they were posted.
+ * 
  * @author rgarcia
  *
  */
 public class ActionCallbackQueue {
 	private static final List<ActionCallback> queue = new ArrayList<ActionCallback>();
 	private static final List<ActionCallback> runQueue = new ArrayList<ActionCallback>();
-	
+
+	/** cb's posted from other threads. Multi producer, single consumer. */
+	private static final ConcurrentLinkedQueue<ActionCallback> postQueue = new ConcurrentLinkedQueue<ActionCallback>();
+
+	/**
+	 * Max. number of cb's resumed by frame. 0 means no limit. -1 until read
+	 * from the config in the first 'run()'.
+	 */
+	private static int maxPerFrame = -1;
+
+	// metrics
+	private static int lastRunCount = 0;
+	private static int maxQueueDepth = 0;
+
 	public static void add(ActionCallback cb) {
-		if(World.getInstance().getAssetState() == AssetState.LOADED)
+		if(World.getInstance().getAssetState() == AssetState.LOADED) {
 			queue.add(cb);
+			ScriptProfiler.callbackAdded(cb);
+		}
 	}
-	
+
+	/**
+	 * Thread safe version of 'add()'. The cb will be resumed in the render
+	 * thread.
+	 */
+	public static void post(ActionCallback cb) {
+		if (cb != null)
+			postQueue.offer(cb);
+	}
+
+	/**
+	 * Moves the cb's posted from other threads to the queue. Must be called
+	 * from the render thread.
+	 * 
+	 * While the world is not LOADED the posted cb's are kept, 'add()' would
+	 * discard them.
+	 */
+	private static void drainPosted() {
+		if (World.getInstance().getAssetState() != AssetState.LOADED)
+			return;
+
+		ActionCallback cb;
+
+		while ((cb = postQueue.poll()) != null) {
+			add(cb);
+		}
+	}
+
 	/**
 	 * Resume all cb's in the 'queue'. 
 	 * 
 	 * To do that, we copy all elements in the 'runQueue' and clean the 'queue' because 
-	 * cb.resume() can trigger more cb's
+	 * cb.resume() can trigger more cb's.
+	 * 
+	 * If 'maxPerFrame' is set, the remaining cb's are resumed in the next frames.
 	 */
 	public static void run() {
+		drainPosted();
+
+		if (queue.size() > maxQueueDepth)
+			maxQueueDepth = queue.size();
+
+		lastRunCount = 0;
+
 		if(!queue.isEmpty()) {
-			runQueue.addAll(queue);				
-			queue.clear();
-			
+			int max = getMaxPerFrame();
+
+			if (max > 0 && queue.size() > max) {
+				List<ActionCallback> l = queue.subList(0, max);
+				runQueue.addAll(l);
+				l.clear();
+			} else {
+				runQueue.addAll(queue);
+				queue.clear();
+			}
+
 			for(ActionCallback cb: runQueue) {
+				ScriptProfiler.callbackResumed(cb);
 				cb.resume();
-								
+				lastRunCount++;
+
 				// Break when changing scene
 				if(World.getInstance().getAssetState() != AssetState.LOADED)
 					break;
@@ -67,9 +135,57 @@ public class ActionCallbackQueue {
 	
 	public static void clear() {
 		queue.clear();
+		postQueue.clear();
+	}
+
+	/**
+	 * Sets the max. number of cb's resumed by frame. 0 means no limit.
+	 */
+	public static void setMaxPerFrame(int max) {
+		maxPerFrame = max;
+	}
+
+	public static int getMaxPerFrame() {
+		if (maxPerFrame == -1)
+			maxPerFrame = Config.getProperty(Config.CALLBACKS_PER_FRAME_PROP, 0);
+
+		return maxPerFrame;
+	}
+
+	/**
+	 * @return The number of cb's waiting to be resumed in the render thread.
+	 */
+	public static int getQueueDepth() {
+		return queue.size();
+	}
+
+	/**
+	 * @return The number of cb's posted from other threads and not yet moved
+	 *         to the queue.
+	 */
+	public static int getPostedDepth() {
+		return postQueue.size();
+	}
+
+	public static int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	/**
+	 * @return The number of cb's resumed in the last 'run()'.
+	 */
+	public static int getLastRunCount() {
+		return lastRunCount;
+	}
+
+	public static void resetMetrics() {
+		maxQueueDepth = 0;
+		lastRunCount = 0;
 	}
 	
 	public static void write(Json json) {
+		drainPosted();
+
 		ArrayList<String> q = new ArrayList<String>();
 		for(ActionCallback cb: queue) {
 			q.add(ActionCallbackSerialization.find(cb));
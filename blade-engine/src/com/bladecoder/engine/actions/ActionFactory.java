@@ -26,8 +26,18 @@ public class ActionFactory {
 
 	private static ClassLoader loader = ActionFactory.class.getClassLoader();
 
+	/**
+	 * Class name -> resolved class. A chapter creates thousands of actions of a
+	 * few classes, so the class lookup is done once per class.
+	 */
+	private static final HashMap<String, Class<?>> classes = new HashMap<String, Class<?>>();
+
 	public static void setActionClassLoader(ClassLoader loader) {
 		ActionFactory.loader = loader;
+
+		synchronized (classes) {
+			classes.clear();
+		}
 	}
 	
 	public static ClassLoader getActionClassLoader() {
@@ -38,7 +48,17 @@ public class ActionFactory {
 
 		Action a = null;
 
-		Class<?> c = Class.forName(className, true, loader);
+		Class<?> c;
+
+		synchronized (classes) {
+			c = classes.get(className);
+
+			if (c == null) {
+				c = Class.forName(className, true, loader);
+				classes.put(className, c);
+			}
+		}
+
 		a = (Action) ClassReflection.newInstance(c);
 
 		if (params != null) {
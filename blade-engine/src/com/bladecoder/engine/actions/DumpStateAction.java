@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.actions;
+
+import com.bladecoder.engine.actions.Param.Type;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.model.StateDump;
+import com.bladecoder.engine.model.VerbRunner;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.util.EngineLogger;
+
+@ActionDescription(name = "DumpState", value = "Dumps the world state to the user folder to compare two runs of the game. Does nothing if not in debug mode.")
+public class DumpStateAction implements Action {
+	@ActionProperty(required = false, type = Type.STRING)
+	@ActionPropertyDescription("The dump filename. If empty, the first free 'statedumpN.json' file is used.")
+	private String filename;
+
+	@Override
+	public boolean run(VerbRunner cb) {
+		if (!EngineLogger.debugMode())
+			return false;
+
+		try {
+			if (filename == null)
+				StateDump.write(World.getInstance());
+			else
+				StateDump.write(World.getInstance(), EngineAssetManager.getInstance().getUserFile(filename));
+		} catch (Exception e) {
+			EngineLogger.error("ERROR DUMPING STATE", e);
+		}
+
+		return false;
+	}
+}
@@ -83,6 +83,8 @@ public class SayAction extends BaseCallbackAction {
 		World.getInstance().getTextManager().addText(text, x, y, queue, type, color, null,
 				a != null ? a.getId() : actor, voiceId, this);
 
+		World.getInstance().getTextManager().getVoiceManager().prefetch(cb);
+
 		return getWait();
 
 	}
@@ -134,4 +136,7 @@ public class SayAction extends BaseCallbackAction {
 		super.read(json, jsonData);
 	}
 
+	public String getVoiceId() {
+		return voiceId;
+	}
 }
@@ -111,7 +111,13 @@ public class TextAction implements Action {
 		World.getInstance().getTextManager().addText(text, x, y, queue, type, color, style, null, voiceId,
 				wait ? cb : null);
 
+		World.getInstance().getTextManager().getVoiceManager().prefetch(cb);
+
 		return wait;
 
 	}
+
+	public String getVoiceId() {
+		return voiceId;
+	}
 }
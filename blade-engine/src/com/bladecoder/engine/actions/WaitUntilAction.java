@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.actions;
+
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.Json.Serializable;
+import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.actions.Param.Type;
+import com.bladecoder.engine.model.InteractiveActor;
+import com.bladecoder.engine.model.PropertyChangeListener;
+import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.VerbRunner;
+import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.ActionUtils;
+import com.bladecoder.engine.util.EngineLogger;
+
+@ActionDescription(name = "WaitUntil", value = "Pause the verb until the game property, the actor state or the scene state has the specified value. Replaces Repeat/Wait polling loops.")
+public class WaitUntilAction implements Action, ActionCallback, PropertyChangeListener, Serializable {
+
+	public enum WaitAttr {
+		PROPERTY, ACTOR_STATE, SCENE_STATE
+	}
+
+	@ActionProperty(required = true, defaultValue = "PROPERTY")
+	@ActionPropertyDescription("The attribute to wait for")
+	private WaitAttr attr = WaitAttr.PROPERTY;
+
+	@ActionProperty
+	@ActionPropertyDescription("The game property name. Only for PROPERTY.")
+	private String name;
+
+	@ActionProperty
+	@ActionPropertyDescription("The target actor. Only for ACTOR_STATE.")
+	private SceneActorRef actor;
+
+	@ActionProperty(type = Type.SCENE)
+	@ActionPropertyDescription("The target scene, the current scene if empty. Only for SCENE_STATE.")
+	private String scene;
+
+	@ActionProperty
+	@ActionPropertyDescription("The value to wait for")
+	private String value;
+
+	private ActionCallback verbCb;
+
+	@Override
+	public boolean run(VerbRunner cb) {
+		if (ActionUtils.compareNullStr(value, getCurrentValue()))
+			return false;
+
+		verbCb = cb;
+		World.getInstance().addPropertyChangeListener(this);
+
+		return true;
+	}
+
+	private String getCurrentValue() {
+		switch (attr) {
+		case ACTOR_STATE:
+			InteractiveActor a = getActor();
+
+			return a == null ? null : a.getState();
+		case SCENE_STATE:
+			Scene s = getScene();
+
+			return s == null ? null : s.getState();
+		default:
+			return World.getInstance().getCustomProperty(name);
+		}
+	}
+
+	private InteractiveActor getActor() {
+		if (actor == null)
+			return null;
+
+		Scene s = actor.getScene();
+
+		if (s == null)
+			return null;
+
+		return (InteractiveActor) s.getActor(actor.getActorId(), true);
+	}
+
+	private Scene getScene() {
+		return (scene != null && !scene.isEmpty()) ? World.getInstance().getScene(scene)
+				: World.getInstance().getCurrentScene();
+	}
+
+	private boolean isSource(Object source, String property) {
+		switch (attr) {
+		case ACTOR_STATE:
+			return source instanceof InteractiveActor && STATE_PROPERTY.equals(property) && source == getActor();
+		case SCENE_STATE:
+			return source instanceof Scene && STATE_PROPERTY.equals(property) && source == getScene();
+		default:
+			return source == World.getInstance() && property.equals(name);
+		}
+	}
+
+	@Override
+	public void propertyChanged(Object source, String property, String value) {
+		if (verbCb != null && isSource(source, property) && ActionUtils.compareNullStr(this.value, value)) {
+			World.getInstance().removePropertyChangeListener(this);
+
+			if (EngineLogger.debugMode())
+				EngineLogger.debug("WaitUntil: " + property + "=" + value);
+
+			// the change can be fired in the middle of another verb, resume in
+			// the next update
+			ActionCallbackQueue.add(this);
+		}
+	}
+
+	@Override
+	public void resume() {
+		World.getInstance().removePropertyChangeListener(this);
+
+		if (verbCb != null) {
+			ActionCallback cb2 = verbCb;
+			verbCb = null;
+			cb2.resume();
+		}
+	}
+
+	@Override
+	public void write(Json json) {
+		json.writeValue("cb", ActionCallbackSerialization.find(verbCb));
+	}
+
+	@Override
+	public void read(Json json, JsonValue jsonData) {
+		verbCb = ActionCallbackSerialization.find(json.readValue("cb", String.class, jsonData));
+
+		if (verbCb != null)
+			World.getInstance().addPropertyChangeListener(this);
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.io.InputStream;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * A file or directory inside an AssetArchive. The relative handles (child,
+ * parent, sibling) are resolved with the ArchiveFileResolver, so they can be
+ * outside the archive.
+ */
+public class ArchiveFileHandle extends FileHandle {
+	private final ArchiveFileResolver resolver;
+	private final AssetArchive archive;
+
+	ArchiveFileHandle(ArchiveFileResolver resolver, AssetArchive archive, String path) {
+		super(path, FileType.Internal);
+
+		this.resolver = resolver;
+		this.archive = archive;
+	}
+
+	@Override
+	public InputStream read() {
+		if (isDirectory())
+			throw new GdxRuntimeException("Cannot open a stream to a directory: " + path());
+
+		return archive.read(path());
+	}
+
+	@Override
+	public boolean exists() {
+		return archive.contains(path());
+	}
+
+	@Override
+	public boolean isDirectory() {
+		return archive.isDirectory(path());
+	}
+
+	@Override
+	public long length() {
+		return archive.length(path());
+	}
+
+	@Override
+	public long lastModified() {
+		return archive.lastModified();
+	}
+
+	@Override
+	public FileHandle[] list() {
+		String[] names = archive.list(path());
+		FileHandle[] l = new FileHandle[names.length];
+
+		for (int i = 0; i < names.length; i++)
+			l[i] = child(names[i]);
+
+		return l;
+	}
+
+	@Override
+	public FileHandle child(String name) {
+		return resolver.resolve(path().isEmpty() ? name : path() + "/" + name);
+	}
+
+	@Override
+	public FileHandle parent() {
+		String p = path();
+		int i = p.lastIndexOf('/');
+
+		return resolver.resolve(i == -1 ? "" : p.substring(0, i));
+	}
+
+	@Override
+	public FileHandle sibling(String name) {
+		if (path().isEmpty())
+			throw new GdxRuntimeException("Cannot get the sibling of the root.");
+
+		return parent().child(name);
+	}
+}
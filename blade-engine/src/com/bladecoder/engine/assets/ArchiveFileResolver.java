@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.io.IOException;
+
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
+
+/**
+ * Resolves the files inside the 'assets.pak' archive if it exists. The files
+ * not found in the archive are resolved with the base resolver.
+ */
+public class ArchiveFileResolver implements FileHandleResolver {
+	private final FileHandleResolver baseResolver;
+
+	private AssetArchive archive;
+	private boolean opened = false;
+
+	public ArchiveFileResolver(FileHandleResolver baseResolver) {
+		this.baseResolver = baseResolver;
+	}
+
+	@Override
+	public FileHandle resolve(String fileName) {
+		AssetArchive a = getArchive();
+
+		if (a != null) {
+			String path = AssetArchive.normalize(fileName);
+
+			if (a.contains(path))
+				return new ArchiveFileHandle(this, a, path);
+		}
+
+		return baseResolver.resolve(fileName);
+	}
+
+	/**
+	 * @return The archive or null if the game is not packed.
+	 */
+	public synchronized AssetArchive getArchive() {
+		if (!opened) {
+			// set before opening, reading the archive can load the config
+			// properties through this resolver
+			opened = true;
+
+			FileHandle f = baseResolver.resolve(AssetArchive.FILENAME);
+
+			if (FileUtils.exists(f)) {
+				try {
+					archive = AssetArchive.open(f);
+				} catch (IOException e) {
+					EngineLogger.error("Error opening asset archive, ignoring it.", e);
+				}
+			}
+		}
+
+		return archive;
+	}
+
+	public synchronized void dispose() {
+		if (archive != null)
+			archive.close();
+
+		archive = null;
+		opened = false;
+	}
+}
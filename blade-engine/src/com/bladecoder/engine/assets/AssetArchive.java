@@ -0,0 +1,637 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * Packed asset archive generated when packaging the game. Reading thousands of
+ * small files is slow in Android (APK extraction) and listing the assets
+ * needs to scan the folders or the jar, so the assets are packed in one file
+ * per resolution with an index at the header.
+ *
+ * 'assets.pak' contains the assets that don't depend on the resolution and
+ * the index of all the packed assets. The assets of the resolution folders
+ * (p.e. 'atlases/1/') are in 'assets-1.pak', so only the archive of the
+ * selected resolution is opened.
+ *
+ * Format: MAGIC + VERSION, the number of entries and the entries (path,
+ * archive, offset, length, stored length and compression) followed by the
+ * data. The archive of an entry is empty for the entries stored in the same
+ * file.
+ *
+ * The entries are read with positional reads in a shared FileChannel when the
+ * archive is in the file system or skipping the stream otherwise. Skipping is
+ * a seek for the assets stored uncompressed in the Android apk ('pak' is in
+ * aaptOptions.noCompress), but in a compressed jar entry it decompresses from
+ * the start of the archive for every read. So the archives are only generated
+ * for Android packages.
+ */
+public class AssetArchive {
+	public static final byte[] MAGIC = { 0, 'B', 'P', 'K' };
+	public static final int VERSION = 1;
+
+	public static final String FILENAME = "assets.pak";
+	public static final String RES_FILENAME_PREFIX = "assets-";
+	public static final String EXT = ".pak";
+
+	private static final int STORED = 0;
+	private static final int DEFLATED = 1;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Already compressed formats. They are stored without compression.
+	 */
+	private static final HashSet<String> STORED_EXTS = new HashSet<String>(
+			Arrays.asList("png", "jpg", "jpeg", "etc1", "ktx", "zktx", "ttf", "otf"));
+
+	/**
+	 * Audio files are not packed. Android needs a file descriptor to play them.
+	 */
+	private static final HashSet<String> EXCLUDED_EXTS = new HashSet<String>(
+			Arrays.asList("ogg", "mp3", "wav", "m4a", "aac", "pak"));
+
+	private static class Entry {
+		String archive;
+		long offset;
+		int length;
+		int storedLength;
+		int method;
+	}
+
+	private final FileHandle file;
+	private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+	/** Directory path -> names of the files and directories inside */
+	private final HashMap<String, TreeSet<String>> dirs = new HashMap<String, TreeSet<String>>();
+
+	/** Archive name -> channel, opened when the first entry is read */
+	private final HashMap<String, FileChannel> channels = new HashMap<String, FileChannel>();
+
+	private AssetArchive(FileHandle file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the index of the archive.
+	 */
+	public static AssetArchive open(FileHandle file) throws IOException {
+		AssetArchive a = new AssetArchive(file);
+		DataInputStream in;
+		File f = file.file();
+
+		if (file.type() != FileType.Classpath && f.isFile())
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), BUFFER_SIZE));
+		else
+			in = new DataInputStream(new BufferedInputStream(file.read(), BUFFER_SIZE));
+
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+
+			if (!Arrays.equals(magic, MAGIC))
+				throw new IOException("Not an asset archive: " + file);
+
+			int version = in.readInt();
+
+			if (version != VERSION)
+				throw new IOException("Asset archive version not supported: " + version);
+
+			int count = in.readInt();
+
+			for (int i = 0; i < count; i++) {
+				String path = in.readUTF();
+				Entry e = new Entry();
+				e.archive = in.readUTF();
+				e.offset = in.readLong();
+				e.length = in.readInt();
+				e.storedLength = in.readInt();
+				e.method = in.readByte();
+
+				a.entries.put(path, e);
+				a.addToDirs(path);
+			}
+		} finally {
+			in.close();
+		}
+
+		return a;
+	}
+
+	private void addToDirs(String path) {
+		int i;
+
+		while ((i = path.lastIndexOf('/')) != -1) {
+			String parent = path.substring(0, i);
+
+			if (!getDir(parent).add(path.substring(i + 1)))
+				return;
+
+			path = parent;
+		}
+
+		getDir("").add(path);
+	}
+
+	private TreeSet<String> getDir(String path) {
+		TreeSet<String> d = dirs.get(path);
+
+		if (d == null) {
+			d = new TreeSet<String>();
+			dirs.put(path, d);
+		}
+
+		return d;
+	}
+
+	/**
+	 * Removes the '/' and './' prefixes and converts the separators.
+	 */
+	public static String normalize(String path) {
+		path = path.replace('\\', '/');
+
+		while (path.startsWith("/") || path.startsWith("./"))
+			path = path.substring(path.charAt(0) == '/' ? 1 : 2);
+
+		if (path.endsWith("/"))
+			path = path.substring(0, path.length() - 1);
+
+		return path;
+	}
+
+	public boolean contains(String path) {
+		return isFile(path) || isDirectory(path);
+	}
+
+	public boolean isFile(String path) {
+		return entries.containsKey(path);
+	}
+
+	public boolean isDirectory(String path) {
+		return dirs.containsKey(path);
+	}
+
+	/**
+	 * @return The names of the files and directories inside the directory.
+	 */
+	public String[] list(String path) {
+		TreeSet<String> d = dirs.get(path);
+
+		if (d == null)
+			return new String[0];
+
+		return d.toArray(new String[d.size()]);
+	}
+
+	public long length(String path) {
+		Entry e = entries.get(path);
+
+		return e == null ? 0 : e.length;
+	}
+
+	public long lastModified() {
+		return file.lastModified();
+	}
+
+	public InputStream read(String path) {
+		Entry e = entries.get(path);
+
+		if (e == null)
+			throw new GdxRuntimeException("File not found in asset archive: " + path);
+
+		InputStream in;
+
+		try {
+			in = openRange(e);
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error reading file from asset archive: " + path, ex);
+		}
+
+		if (e.method == DEFLATED)
+			return new InflaterInputStream(in);
+
+		return in;
+	}
+
+	private InputStream openRange(Entry e) throws IOException {
+		FileHandle af = e.archive.isEmpty() ? file : file.sibling(RES_FILENAME_PREFIX + e.archive + EXT);
+		File f = af.file();
+
+		if (af.type() != FileType.Classpath && f.isFile())
+			return new ChannelInputStream(getChannel(e.archive, f), e.offset, e.storedLength);
+
+		// the archive is inside the jar or the apk
+		InputStream in = af.read();
+
+		try {
+			long skip = e.offset;
+
+			while (skip > 0) {
+				long s = in.skip(skip);
+
+				if (s <= 0)
+					throw new IOException("Unexpected end of asset archive: " + af);
+
+				skip -= s;
+			}
+		} catch (IOException ex) {
+			StreamUtils.closeQuietly(in);
+			throw ex;
+		}
+
+		return new RangeInputStream(in, e.storedLength);
+	}
+
+	@SuppressWarnings("resource")
+	private FileChannel getChannel(String archive, File f) throws IOException {
+		synchronized (channels) {
+			FileChannel c = channels.get(archive);
+
+			if (c == null) {
+				c = new RandomAccessFile(f, "r").getChannel();
+				channels.put(archive, c);
+			}
+
+			return c;
+		}
+	}
+
+	public void close() {
+		synchronized (channels) {
+			for (FileChannel c : channels.values())
+				StreamUtils.closeQuietly(c);
+
+			channels.clear();
+		}
+	}
+
+	/**
+	 * Packs the files inside the subfolders of the assets folder. The files in
+	 * the root folder (p.e. the config properties) and the audio files are not
+	 * packed.
+	 *
+	 * @param resolutions
+	 *            The resolution folder names. Every resolution is written in
+	 *            its own archive.
+	 * @param destDir
+	 *            The folder where the archives are written. The assets folder
+	 *            is not modified.
+	 * @param excluded
+	 *            Paths of the files that are not packed, relative to the
+	 *            assets folder.
+	 * @return The paths of the packed files relative to the assets folder.
+	 */
+	public static List<String> pack(File assetsDir, List<String> resolutions, File destDir,
+			Collection<String> excluded) throws IOException {
+		// archive -> (path -> file)
+		LinkedHashMap<String, LinkedHashMap<String, File>> archives = new LinkedHashMap<String, LinkedHashMap<String, File>>();
+
+		for (String r : resolutions)
+			archives.put(r, new LinkedHashMap<String, File>());
+
+		archives.put("", new LinkedHashMap<String, File>());
+
+		File[] children = assetsDir.listFiles();
+
+		if (children != null) {
+			for (File c : children) {
+				if (c.isDirectory())
+					collect(c, c.getName(), resolutions, excluded, archives);
+			}
+		}
+
+		ArrayList<String> packed = new ArrayList<String>();
+		LinkedHashMap<String, Entry> all = new LinkedHashMap<String, Entry>();
+
+		// the resolution archives first to know the offsets for the main index
+		for (Map.Entry<String, LinkedHashMap<String, File>> a : archives.entrySet()) {
+			if (a.getKey().isEmpty() || a.getValue().isEmpty())
+				continue;
+
+			Map<String, Entry> written = write(a.getValue(), null,
+					new File(destDir, RES_FILENAME_PREFIX + a.getKey() + EXT));
+
+			for (Map.Entry<String, Entry> e : written.entrySet()) {
+				e.getValue().archive = a.getKey();
+				all.put(e.getKey(), e.getValue());
+			}
+
+			packed.addAll(a.getValue().keySet());
+		}
+
+		write(archives.get(""), all, new File(destDir, FILENAME));
+		packed.addAll(archives.get("").keySet());
+
+		return packed;
+	}
+
+	private static void collect(File dir, String path, List<String> resolutions, Collection<String> excluded,
+			Map<String, LinkedHashMap<String, File>> archives) {
+		File[] children = dir.listFiles();
+
+		if (children == null)
+			return;
+
+		Arrays.sort(children);
+
+		for (File c : children) {
+			String p = path + "/" + c.getName();
+
+			if (c.isDirectory()) {
+				collect(c, p, resolutions, excluded, archives);
+			} else if (!EXCLUDED_EXTS.contains(getExtension(c.getName())) && !excluded.contains(p)) {
+				String archive = resolutions.contains(dir.getName()) ? dir.getName() : "";
+				archives.get(archive).put(p, c);
+			}
+		}
+	}
+
+	/**
+	 * Writes an archive with the files and the index of the files plus the
+	 * external entries.
+	 *
+	 * @return The entries of the files.
+	 */
+	private static Map<String, Entry> write(Map<String, File> files, Map<String, Entry> external, File dest)
+			throws IOException {
+		LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		HashMap<String, byte[]> deflated = new HashMap<String, byte[]>();
+
+		for (Map.Entry<String, File> f : files.entrySet()) {
+			Entry e = new Entry();
+			e.archive = "";
+			e.length = (int) f.getValue().length();
+			e.storedLength = e.length;
+			e.method = STORED;
+
+			if (!STORED_EXTS.contains(getExtension(f.getKey()))) {
+				byte[] data = deflate(f.getValue());
+
+				if (data.length < e.length) {
+					e.storedLength = data.length;
+					e.method = DEFLATED;
+					deflated.put(f.getKey(), data);
+				}
+			}
+
+			entries.put(f.getKey(), e);
+		}
+
+		LinkedHashMap<String, Entry> index = new LinkedHashMap<String, Entry>(entries);
+
+		if (external != null)
+			index.putAll(external);
+
+		// the offsets have fixed size, so the index size is known before
+		// calculating them
+		long offset = writeIndex(index, new ByteArrayOutputStream());
+
+		for (Entry e : entries.values()) {
+			e.offset = offset;
+			offset += e.storedLength;
+		}
+
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(dest), BUFFER_SIZE);
+
+		try {
+			writeIndex(index, out);
+
+			byte[] buf = new byte[BUFFER_SIZE];
+
+			for (Map.Entry<String, File> f : files.entrySet()) {
+				byte[] data = deflated.get(f.getKey());
+
+				if (data != null) {
+					out.write(data);
+					continue;
+				}
+
+				InputStream in = new FileInputStream(f.getValue());
+
+				try {
+					int n;
+
+					while ((n = in.read(buf)) != -1)
+						out.write(buf, 0, n);
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		return entries;
+	}
+
+	/**
+	 * @return The size of the header.
+	 */
+	private static long writeIndex(Map<String, Entry> index, OutputStream os) throws IOException {
+		DataOutputStream out = new DataOutputStream(os);
+
+		out.write(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(index.size());
+
+		for (Map.Entry<String, Entry> i : index.entrySet()) {
+			Entry e = i.getValue();
+
+			out.writeUTF(i.getKey());
+			out.writeUTF(e.archive);
+			out.writeLong(e.offset);
+			out.writeInt(e.length);
+			out.writeInt(e.storedLength);
+			out.writeByte(e.method);
+		}
+
+		out.flush();
+
+		return out.size();
+	}
+
+	private static byte[] deflate(File f) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater, BUFFER_SIZE);
+		InputStream in = new FileInputStream(f);
+
+		try {
+			byte[] buf = new byte[BUFFER_SIZE];
+			int n;
+
+			while ((n = in.read(buf)) != -1)
+				out.write(buf, 0, n);
+
+			out.finish();
+		} finally {
+			in.close();
+			deflater.end();
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static String getExtension(String name) {
+		int i = name.lastIndexOf('.');
+
+		return i == -1 ? "" : name.substring(i + 1).toLowerCase();
+	}
+
+	/**
+	 * Reads a range of the archive with positional reads, so the channel is
+	 * shared by all the streams.
+	 */
+	private static class ChannelInputStream extends InputStream {
+		private final FileChannel channel;
+		private long pos;
+		private final long end;
+
+		ChannelInputStream(FileChannel channel, long offset, int length) {
+			this.channel = channel;
+			this.pos = offset;
+			this.end = offset + length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+
+			if (pos >= end)
+				return -1;
+
+			len = (int) Math.min(len, end - pos);
+			int n = channel.read(ByteBuffer.wrap(b, off, len), pos);
+
+			if (n > 0)
+				pos += n;
+
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			long s = Math.max(0, Math.min(n, end - pos));
+			pos += s;
+
+			return s;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, end - pos);
+		}
+	}
+
+	/**
+	 * Limits the stream to the length of the entry.
+	 */
+	private static class RangeInputStream extends FilterInputStream {
+		private long remaining;
+
+		RangeInputStream(InputStream in, long length) {
+			super(in);
+			remaining = length;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0)
+				return -1;
+
+			int b = in.read();
+
+			if (b != -1)
+				remaining--;
+
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0)
+				return 0;
+
+			if (remaining <= 0)
+				return -1;
+
+			int n = in.read(b, off, (int) Math.min(len, remaining));
+
+			if (n > 0)
+				remaining -= n;
+
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long s = in.skip(Math.min(n, remaining));
+
+			if (s > 0)
+				remaining -= s;
+
+			return s;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return (int) Math.min(in.available(), remaining);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Page;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.bladecoder.engine.ink.InkManager;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
+import com.bladecoder.engine.util.StreamingJsonReader;
+
+/**
+ * The assets referenced by every scene of a chapter: the renderer sources,
+ * the actor sounds, the scene music and the assets used by the actions (music,
+ * voices) and by the Ink stories started from the scene.
+ *
+ * It is generated when packaging the game and saved next to the chapter as
+ * 'chapter.manifest.json'. Every asset has an estimate of its resident bytes
+ * (decoded textures and file size for the rest) in the '1' resolution.
+ */
+public class AssetManifest {
+	public static final String MANIFEST_EXT = ".manifest.json";
+
+	public enum Type {
+		ATLAS, IMAGE, SOUND, MUSIC, VOICE, MODEL3D, FONT
+	}
+
+	public static class Asset {
+		public Type type;
+		public String name;
+		public long size;
+	}
+
+	private final HashMap<String, List<Asset>> scenes = new HashMap<String, List<Asset>>();
+
+	/**
+	 * @return The assets of the scene, empty if the scene is not in the
+	 *         manifest.
+	 */
+	public List<Asset> getAssets(String sceneId) {
+		List<Asset> l = scenes.get(sceneId);
+
+		if (l == null)
+			return Collections.emptyList();
+
+		return Collections.unmodifiableList(l);
+	}
+
+	public static AssetManifest load(FileHandle file) {
+		AssetManifest m = new AssetManifest();
+		Json json = new Json();
+		JsonValue root = new JsonReader().parse(FileUtils.reader(file, "UTF-8"));
+
+		for (JsonValue scene = root.child; scene != null; scene = scene.next) {
+			ArrayList<Asset> l = new ArrayList<Asset>();
+
+			for (JsonValue a = scene.child; a != null; a = a.next)
+				l.add(json.readValue(Asset.class, a));
+
+			m.scenes.put(scene.name, l);
+		}
+
+		return m;
+	}
+
+	public void write(FileHandle file) {
+		Json json = new Json();
+		json.setOutputType(OutputType.javascript);
+		json.setWriter(new StringWriter());
+
+		json.writeObjectStart();
+
+		for (Map.Entry<String, List<Asset>> e : scenes.entrySet()) {
+			json.writeArrayStart(e.getKey());
+
+			for (Asset a : e.getValue())
+				json.writeValue(a, Asset.class);
+
+			json.writeArrayEnd();
+		}
+
+		json.writeObjectEnd();
+
+		file.writeString(json.getWriter().getWriter().toString(), false, "UTF-8");
+	}
+
+	/**
+	 * Generates the manifest of a chapter.
+	 *
+	 * @param chapter
+	 *            The .chapter.json file.
+	 * @param assetsDir
+	 *            The project assets folder to calculate the sizes.
+	 */
+	public static AssetManifest build(FileHandle chapter, FileHandle assetsDir) throws IOException {
+		final Builder b = new Builder(assetsDir);
+
+		new StreamingJsonReader().parse(FileUtils.reader(chapter, "UTF-8"), "scenes",
+				new StreamingJsonReader.MemberListener() {
+					@Override
+					public void member(String name, String json) {
+						b.buildScene(name, new JsonReader().parse(json));
+					}
+				});
+
+		return b.manifest;
+	}
+
+	private static class Builder {
+		private static final String RESOLUTION = "1";
+
+		private final AssetManifest manifest = new AssetManifest();
+		private final FileHandle assetsDir;
+
+		private List<Asset> current;
+		private final HashSet<String> added = new HashSet<String>();
+
+		/** Ink stories already scanned for the current scene */
+		private final HashSet<String> stories = new HashSet<String>();
+
+		Builder(FileHandle assetsDir) {
+			this.assetsDir = assetsDir;
+		}
+
+		void buildScene(String id, JsonValue scene) {
+			current = new ArrayList<Asset>();
+			added.clear();
+			stories.clear();
+
+			add(Type.ATLAS, scene.getString("backgroundAtlas", null));
+
+			JsonValue music = scene.get("musicDesc");
+
+			if (music != null && music.isObject())
+				add(Type.MUSIC, music.getString("filename", null));
+
+			scan(scene);
+
+			manifest.scenes.put(id, current);
+		}
+
+		private void scan(JsonValue v) {
+			if (v.isObject()) {
+				String clazz = v.getString("class", null);
+
+				if (clazz != null)
+					scanClass(clazz.substring(clazz.lastIndexOf('.') + 1), v);
+
+				JsonValue sounds = v.get("sounds");
+
+				if (sounds != null && sounds.isObject()) {
+					for (JsonValue s = sounds.child; s != null; s = s.next)
+						add(Type.SOUND, s.getString("filename", null));
+				}
+
+				add(Type.VOICE, v.getString("voiceId", null));
+			}
+
+			for (JsonValue c = v.child; c != null; c = c.next)
+				scan(c);
+		}
+
+		private void scanClass(String clazz, JsonValue v) {
+			if (clazz.equals("AtlasRenderer") || clazz.equals("ImageRenderer") || clazz.equals("Sprite3DRenderer")) {
+				Type t = clazz.equals("AtlasRenderer") ? Type.ATLAS
+						: clazz.equals("ImageRenderer") ? Type.IMAGE : Type.MODEL3D;
+				JsonValue fanims = v.get("fanims");
+
+				if (fanims != null) {
+					for (JsonValue fa = fanims.child; fa != null; fa = fa.next)
+						add(t, fa.getString("source", null));
+				}
+			} else if (clazz.equals("ParticleRenderer")) {
+				add(Type.ATLAS, v.getString("atlasName", null));
+			} else if (clazz.equals("TextRenderer")) {
+				add(Type.FONT, v.getString("fontName", null));
+			} else if (clazz.equals("MusicAction")) {
+				add(Type.MUSIC, v.getString("filename", null));
+			} else if (clazz.equals("InkNewStoryAction")) {
+				scanInk(v.getString("storyName", null));
+			}
+		}
+
+		/**
+		 * Ink commands are strings like '^>Music: filename=x' and the params of
+		 * a text line are tags like {"#": "voiceId:x"}.
+		 */
+		private void scanInk(String story) {
+			if (story == null || !stories.add(story))
+				return;
+
+			FileHandle f = assetsDir.child(EngineAssetManager.MODEL_DIR + story + EngineAssetManager.INK_EXT);
+
+			if (!f.exists()) {
+				EngineLogger.error("MANIFEST: Ink story not found: " + story);
+				return;
+			}
+
+			scanInkValue(new JsonReader().parse(f));
+		}
+
+		private void scanInkValue(JsonValue v) {
+			if (v.isString()) {
+				String s = v.asString();
+
+				if (s.startsWith("^" + InkManager.COMMAND_MARK))
+					scanInkCommand(s.substring(2));
+				else if ("#".equals(v.name))
+					scanInkParam(null, s);
+			}
+
+			for (JsonValue c = v.child; c != null; c = c.next)
+				scanInkValue(c);
+		}
+
+		private void scanInkCommand(String line) {
+			int i = line.indexOf(InkManager.NAME_VALUE_TAG_SEPARATOR);
+
+			if (i == -1)
+				return;
+
+			String command = line.substring(0, i).trim();
+			String[] params = line.substring(i + 1).split(",");
+
+			// for backward compatibility, '>action: Music, filename=x'
+			if (command.equals("action"))
+				command = params[0].trim();
+
+			for (String p : params)
+				scanInkParam(command, p);
+		}
+
+		private void scanInkParam(String command, String param) {
+			int i = param.indexOf(InkManager.NAME_VALUE_TAG_SEPARATOR);
+
+			if (i == -1)
+				i = param.indexOf(InkManager.NAME_VALUE_PARAM_SEPARATOR);
+
+			if (i == -1)
+				return;
+
+			String key = param.substring(0, i).trim();
+			String value = param.substring(i + 1).trim();
+
+			if (key.equals("voiceId"))
+				add(Type.VOICE, value);
+			else if (key.equals("filename") && "Music".equals(command))
+				add(Type.MUSIC, value);
+		}
+
+		private void add(Type type, String name) {
+			if (name == null || name.isEmpty() || !added.add(type + "/" + name))
+				return;
+
+			Asset a = new Asset();
+			a.type = type;
+			a.name = name;
+			a.size = estimateSize(type, name);
+
+			current.add(a);
+		}
+
+		private long estimateSize(Type type, String name) {
+			switch (type) {
+			case ATLAS:
+				FileHandle atlas = resolve(EngineAssetManager.ATLASES_DIR + name + EngineAssetManager.ATLAS_EXT);
+
+				if (!atlas.exists())
+					return 0;
+
+				long size = 0;
+
+				for (Page p : new TextureAtlasData(atlas, atlas.parent(), false).getPages())
+					size += getImageBytes(p.textureFile);
+
+				return size;
+			case IMAGE:
+				return getImageBytes(resolve(EngineAssetManager.IMAGE_DIR + name));
+			case SOUND:
+				return getLength(assetsDir.child(EngineAssetManager.SOUND_DIR + name));
+			case MUSIC:
+				return getLength(assetsDir.child(EngineAssetManager.MUSIC_DIR + name));
+			case VOICE:
+				return getLength(assetsDir.child(EngineAssetManager.VOICE_DIR + name));
+			case MODEL3D:
+				return getLength(assetsDir.child(EngineAssetManager.MODEL3D_DIR + name + EngineAssetManager.MODEL3D_EXT));
+			case FONT:
+				return getLength(assetsDir.child(EngineAssetManager.FONT_DIR + name + EngineAssetManager.FONT_EXT));
+			default:
+				return 0;
+			}
+		}
+
+		/**
+		 * Same search as the EngineResolutionFileResolver.
+		 */
+		private FileHandle resolve(String fileName) {
+			FileHandle f = new FileHandle(fileName);
+			FileHandle res = assetsDir.child(f.parent().path() + "/" + RESOLUTION + "/" + f.name());
+
+			return res.exists() ? res : assetsDir.child(fileName);
+		}
+
+		private static long getLength(FileHandle f) {
+			return f.exists() ? f.length() : 0;
+		}
+
+		/**
+		 * Decoded size of the image as RGBA. Reads the PNG header or uses the
+		 * file size for other formats.
+		 */
+		private static long getImageBytes(FileHandle f) {
+			if (!f.exists())
+				return 0;
+
+			if (f.extension().equalsIgnoreCase("png")) {
+				DataInputStream in = new DataInputStream(f.read());
+
+				try {
+					// signature (8), chunk length (4) and 'IHDR' (4)
+					in.skipBytes(16);
+
+					return (long) in.readInt() * in.readInt() * 4;
+				} catch (IOException e) {
+					EngineLogger.error("MANIFEST: Error reading " + f.path());
+				} finally {
+					try {
+						in.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+
+			return f.length();
+		}
+	}
+}
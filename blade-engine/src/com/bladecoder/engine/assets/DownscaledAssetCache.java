@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.io.IOException;
+import java.util.HashSet;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Blending;
+import com.badlogic.gdx.graphics.Pixmap.Filter;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.bladecoder.engine.util.Config;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
+
+/**
+ * Downscaled copies of the asset images generated at runtime and cached in
+ * the user folder, so low memory devices can use the assets of the selected
+ * resolution at a lower scale without shipping another resolution folder.
+ *
+ * The images are generated in the caller thread, it must be a worker thread.
+ * They are regenerated when the source image is newer. The modification time
+ * is 0 for the assets inside the apk, the jar or the asset archive, so the
+ * cache of a scale is also cleared when the game or engine version changes.
+ *
+ * Generating an image decodes the full size source in a Pixmap, so the first
+ * load of a downscaled asset briefly needs the native memory of the original
+ * image (width * height * 4 bytes for RGBA) plus the downscaled copy. Only one
+ * image is generated at a time (the method is synchronized), which bounds the
+ * peak to the biggest source image. The next loads read the cached image.
+ */
+public class DownscaledAssetCache {
+	public static final String CACHE_DIR = "cache";
+
+	private static final String TMP_EXT = ".tmp";
+	private static final String KEY_FILENAME = "cache.key";
+
+	private final FileHandle dir;
+	private final String prefix;
+
+	/** The scales whose cache key has been checked */
+	private final HashSet<String> checkedScales = new HashSet<String>();
+
+	public DownscaledAssetCache(FileHandle dir) {
+		this.dir = dir;
+		prefix = dir.path() + "/";
+	}
+
+	/**
+	 * @return The downscaled image, generating it if it is not in the cache.
+	 */
+	public synchronized FileHandle getImage(FileHandle image, float scale) {
+		String path = image.path().replace(':', '_');
+
+		while (path.startsWith("/"))
+			path = path.substring(1);
+
+		FileHandle scaleDir = dir.child(Float.toString(scale));
+
+		if (checkedScales.add(scaleDir.name()))
+			checkKey(scaleDir);
+
+		FileHandle dest = scaleDir.child(path);
+
+		if (dest.exists() && dest.lastModified() >= image.lastModified())
+			return dest;
+
+		long initTime = System.currentTimeMillis();
+		Pixmap src = new Pixmap(image);
+
+		try {
+			int width = Math.max(1, Math.round(src.getWidth() * scale));
+			int height = Math.max(1, Math.round(src.getHeight() * scale));
+			Pixmap dst = new Pixmap(width, height, src.getFormat());
+
+			try {
+				dst.setBlending(Blending.None);
+				dst.setFilter(Filter.BiLinear);
+				dst.drawPixmap(src, 0, 0, src.getWidth(), src.getHeight(), 0, 0, width, height);
+
+				// written to a temporary file, so an interrupted write is not
+				// taken as a cached image
+				FileHandle tmp = dest.sibling(dest.name() + TMP_EXT);
+				PixmapIO.writePNG(tmp, dst);
+				FileUtils.replace(tmp, dest);
+			} catch (IOException e) {
+				throw new GdxRuntimeException(e);
+			} finally {
+				dst.dispose();
+			}
+		} finally {
+			src.dispose();
+		}
+
+		EngineLogger.debug("DOWNSCALED " + image.path() + " TO " + scale + " IN "
+				+ (System.currentTimeMillis() - initTime) + " ms");
+
+		return dest;
+	}
+
+	/**
+	 * Clears the cache of the scale if it was generated by another version of
+	 * the game or the engine.
+	 */
+	private void checkKey(FileHandle scaleDir) {
+		String key = Config.getProperty(Config.VERSION_PROP, "") + "|"
+				+ Config.getProperty(Config.BLADE_ENGINE_VERSION_PROP, "");
+		FileHandle keyFile = scaleDir.child(KEY_FILENAME);
+
+		try {
+			if (keyFile.exists() && keyFile.readString("UTF-8").equals(key))
+				return;
+
+			if (scaleDir.exists()) {
+				EngineLogger.debug("CLEARING DOWNSCALED CACHE: " + scaleDir.path());
+				scaleDir.deleteDirectory();
+			}
+
+			keyFile.writeString(key, false, "UTF-8");
+		} catch (GdxRuntimeException e) {
+			EngineLogger.error("ERROR CHECKING DOWNSCALED CACHE KEY: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return true if the file name is a file of the cache.
+	 */
+	public boolean contains(String fileName) {
+		return fileName.startsWith(prefix);
+	}
+
+	public FileHandle resolve(String fileName) {
+		return Gdx.files.getFileHandle(fileName, dir.type());
+	}
+}
@@ -23,23 +23,30 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.assets.loaders.FileHandleResolver;
-import com.badlogic.gdx.assets.loaders.TextureAtlasLoader;
-import com.badlogic.gdx.assets.loaders.TextureLoader;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.assets.loaders.resolvers.ResolutionFileResolver.Resolution;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Mesh;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
@@ -77,18 +84,60 @@ public class EngineAssetManager extends AssetManager {
 	public static final String FONT_EXT = ".ttf";
 
 	public static final String CHAPTER_EXT = ".chapter.json";
+	public static final String CHAPTER_BUNDLE_EXT = ".chapter.bin";
 
 	private static final String OGG_EXT = ".ogg";
 	private static final String AAC_EXT = ".m4a";
 
 	private static EngineAssetManager instance = null;
 
+	/**
+	 * Atlases are downscaled by class. UI atlases are always loaded at the
+	 * selected resolution.
+	 */
+	public enum AssetClass {
+		UI, BACKGROUND, SPRITE
+	}
+
+	/** Budgets (MB) under which the backgrounds and sprites are downscaled */
+	private static final int LOW_MEMORY_BUDGET = 128;
+	private static final int MEDIUM_MEMORY_BUDGET = 256;
+	private static final float LOW_MEMORY_SCALE = 0.5f;
+
 	private float scale = 1;
 
 	private EngineResolutionFileResolver resResolver;
 
+	/**
+	 * Assets not referenced by any consumer that are kept loaded while the
+	 * memory budget allows it. In release order, the first is evicted first.
+	 * 
+	 * A cached asset keeps the AssetManager reference of its last consumer
+	 * (its reference count is 1). The renderers keep their own per renderer
+	 * reference counts (AnimationRenderer.sourceCache) and release the assets
+	 * with unload(), so their sources go through this cache too.
+	 */
+	private final LinkedHashSet<String> cached = new LinkedHashSet<String>();
+
+	/** Estimated bytes of the loaded assets */
+	private final HashMap<String, Long> sizes = new HashMap<String, Long>();
+
+	/** In bytes. 0 to unload the assets as soon as they are not referenced. */
+	private long memoryBudget = -1;
+
+	private boolean unloading = false;
+	private boolean budgetCheckPending = false;
+
+	/** true during the once per frame update that throttles the uploads */
+	private boolean frameUpdate = false;
+
+	/** Atlas file name -> scale of the atlases loaded downscaled */
+	private final HashMap<String, Float> atlasScales = new HashMap<String, Float>();
+
+	private DownscaledAssetCache downscaledAssetCache;
+
 	protected EngineAssetManager() {
-		this(new InternalFileHandleResolver());
+		this(new ArchiveFileResolver(new MappedFileResolver(new InternalFileHandleResolver())));
 		// getLogger().setLevel(Application.LOG_DEBUG);
 	}
 
@@ -96,8 +145,8 @@ public class EngineAssetManager extends AssetManager {
 		super(resolver);
 
 		resResolver = new EngineResolutionFileResolver(resolver);
-		setLoader(Texture.class, new TextureLoader(resResolver));
-		setLoader(TextureAtlas.class, new TextureAtlasLoader(resResolver));
+		setLoader(Texture.class, new ThrottledTextureLoader(resResolver));
+		setLoader(TextureAtlas.class, new ScaledTextureAtlasLoader(resResolver));
 		setLoader(FreeTypeFontGenerator.class, new FreeTypeFontGeneratorLoader(resolver));
 		setLoader(BitmapFont.class, ".ttf", new FreetypeFontLoader(resolver));
 
@@ -159,7 +208,8 @@ public class EngineAssetManager extends AssetManager {
 		if (instance != null)
 			instance.dispose();
 
-		instance = new EngineAssetManager(new InternalFolderResolver(base));
+		instance = new EngineAssetManager(
+				new ArchiveFileResolver(new MappedFileResolver(new InternalFolderResolver(base))));
 	}
 
 	public void forceResolution(String suffix) {
@@ -176,8 +226,108 @@ public class EngineAssetManager extends AssetManager {
 		return !update();
 	}
 
+	/**
+	 * Advances the loading one step. Call it once per frame: only these
+	 * updates throttle the texture uploads, the other updates (finishLoading,
+	 * update(millis)...) upload all the textures without waiting for the next
+	 * frame.
+	 * 
+	 * @return true if all the assets are loaded.
+	 */
+	public synchronized boolean updateFrame() {
+		frameUpdate = true;
+
+		try {
+			return update();
+		} finally {
+			frameUpdate = false;
+		}
+	}
+
+	/**
+	 * @return true while in the 'updateFrame()' call.
+	 */
+	boolean isFrameUpdate() {
+		return frameUpdate;
+	}
+
 	public void loadAtlas(String name) {
-		load(ATLASES_DIR + name + ATLAS_EXT, TextureAtlas.class);
+		loadAtlas(name, AssetClass.SPRITE);
+	}
+
+	/**
+	 * Loads the atlas with the scale of its asset class. If the atlas is
+	 * already loaded, it keeps its scale.
+	 */
+	public synchronized void loadAtlas(String name, AssetClass assetClass) {
+		String fileName = ATLASES_DIR + name + ATLAS_EXT;
+
+		if (!isLoaded(fileName)) {
+			float scale = getAssetClassScale(assetClass);
+
+			if (scale < 1)
+				atlasScales.put(fileName, scale);
+			else
+				atlasScales.remove(fileName);
+		}
+
+		load(fileName, TextureAtlas.class);
+	}
+
+	public synchronized float getAtlasScale(String fileName) {
+		Float scale = atlasScales.get(fileName);
+
+		return scale == null ? 1 : scale;
+	}
+
+	/**
+	 * The scale of the assets of a class over the selected resolution. It is
+	 * set with the 'asset_class_scales' config property (p.e.
+	 * 'background:0.5,sprite:0.75'). If not set, it is calculated from the
+	 * memory budget: the backgrounds are downscaled first because they are
+	 * the biggest textures and the less noticeable.
+	 */
+	public float getAssetClassScale(AssetClass assetClass) {
+		if (assetClass == AssetClass.UI)
+			return 1;
+
+		String prop = Config.getProperty(Config.ASSET_CLASS_SCALES_PROP, null);
+
+		if (prop != null) {
+			for (String s : prop.split(",")) {
+				int i = s.indexOf(':');
+
+				if (i != -1 && s.substring(0, i).trim().equalsIgnoreCase(assetClass.name())) {
+					try {
+						return Math.max(0.1f, Math.min(1f, Float.parseFloat(s.substring(i + 1).trim())));
+					} catch (NumberFormatException e) {
+						EngineLogger.error("Wrong asset class scale: " + s);
+					}
+				}
+			}
+		}
+
+		long budget = getMemoryBudget();
+
+		if (budget <= 0)
+			return 1;
+
+		if (budget < LOW_MEMORY_BUDGET * 1024L * 1024L)
+			return LOW_MEMORY_SCALE;
+
+		if (budget < MEDIUM_MEMORY_BUDGET * 1024L * 1024L && assetClass == AssetClass.BACKGROUND)
+			return LOW_MEMORY_SCALE;
+
+		return 1;
+	}
+
+	public synchronized DownscaledAssetCache getDownscaledAssetCache() {
+		if (downscaledAssetCache == null) {
+			downscaledAssetCache = new DownscaledAssetCache(getUserFolder().child(DownscaledAssetCache.CACHE_DIR));
+			resResolver.setDownscaledAssetCache(downscaledAssetCache);
+		}
+
+		return downscaledAssetCache;
 	}
 
 	public boolean isAtlasLoaded(String name) {
@@ -258,9 +408,303 @@ public class EngineAssetManager extends AssetManager {
 
 	public void dispose() {
 		super.dispose();
+
+		if (resResolver.getBaseResolver() instanceof ArchiveFileResolver)
+			((ArchiveFileResolver) resResolver.getBaseResolver()).dispose();
+
 		instance = null;
 	}
 
+	/**
+	 * A cached asset is given to the new consumer with the cache reference:
+	 * the reference kept when it was cached is not released, so its reference
+	 * count stays 1 and it is not incremented here.
+	 * 
+	 * Only the assets loaded without parameters are reused. With parameters,
+	 * the cached asset is unloaded and loaded again with them.
+	 */
+	@Override
+	public synchronized <T> void load(String fileName, Class<T> type, AssetLoaderParameters<T> parameter) {
+		if (cached.remove(fileName)) {
+			if (parameter == null && getAssetType(fileName) == type)
+				return;
+
+			evict(fileName);
+		}
+
+		super.load(fileName, type, parameter);
+		budgetCheckPending = true;
+	}
+
+	/**
+	 * When the last reference of an asset is released and there is a memory
+	 * budget, the asset is not unloaded but cached. The cached assets are
+	 * evicted when the resident memory exceeds the budget.
+	 */
+	@Override
+	public synchronized void unload(String fileName) {
+		if (!unloading && getMemoryBudget() > 0 && isLoaded(fileName) && isCacheable(fileName)
+				&& getReferenceCount(fileName) == 1) {
+			if (cached.add(fileName))
+				enforceBudget();
+
+			return;
+		}
+
+		// the dependencies are unloaded recursively and must not be cached
+		boolean wasUnloading = unloading;
+		unloading = true;
+
+		try {
+			super.unload(fileName);
+		} finally {
+			unloading = wasUnloading;
+		}
+
+		if (!isLoaded(fileName)) {
+			sizes.remove(fileName);
+			atlasScales.remove(fileName);
+		}
+	}
+
+	@Override
+	public synchronized void clear() {
+		cached.clear();
+
+		boolean wasUnloading = unloading;
+		unloading = true;
+
+		try {
+			super.clear();
+		} finally {
+			unloading = wasUnloading;
+		}
+
+		sizes.clear();
+	}
+
+	@Override
+	public synchronized boolean update() {
+		boolean done = super.update();
+
+		if (done && budgetCheckPending) {
+			budgetCheckPending = false;
+			enforceBudget();
+		}
+
+		return done;
+	}
+
+	private boolean isCacheable(String fileName) {
+		Class<?> type = getAssetType(fileName);
+
+		return type == Texture.class || type == TextureAtlas.class || type == Sound.class || type == Model.class;
+	}
+
+	/**
+	 * Evicts the cached assets, the oldest first, until the resident memory is
+	 * under the budget.
+	 */
+	private void enforceBudget() {
+		long budget = getMemoryBudget();
+
+		if (budget <= 0)
+			return;
+
+		long used = getResidentBytes();
+		Iterator<String> it = cached.iterator();
+
+		while (used > budget && it.hasNext()) {
+			String fileName = it.next();
+			it.remove();
+
+			EngineLogger.debug("EVICTING CACHED ASSET: " + fileName);
+
+			used -= evict(fileName);
+		}
+	}
+
+	/**
+	 * Unloads a cached asset.
+	 * 
+	 * @return The estimated bytes freed: the asset and the dependencies that
+	 *         are not used by other assets.
+	 */
+	private long evict(String fileName) {
+		HashMap<String, Long> candidates = new HashMap<String, Long>();
+		addWithDependencies(fileName, candidates);
+
+		boolean wasUnloading = unloading;
+		unloading = true;
+
+		try {
+			unload(fileName);
+		} finally {
+			unloading = wasUnloading;
+		}
+
+		long freed = 0;
+
+		for (Map.Entry<String, Long> e : candidates.entrySet()) {
+			if (!isLoaded(e.getKey()))
+				freed += e.getValue();
+		}
+
+		return freed;
+	}
+
+	private void addWithDependencies(String fileName, HashMap<String, Long> assets) {
+		if (assets.containsKey(fileName) || !isLoaded(fileName))
+			return;
+
+		assets.put(fileName, getAssetBytes(fileName));
+
+		Array<String> deps = getDependencies(fileName);
+
+		if (deps != null) {
+			for (String d : deps)
+				addWithDependencies(d, assets);
+		}
+	}
+
+	/**
+	 * The budget is set with the 'asset_memory_budget' config property in MB.
+	 */
+	public synchronized long getMemoryBudget() {
+		if (memoryBudget == -1)
+			memoryBudget = Config.getProperty(Config.ASSET_MEMORY_BUDGET_PROP, 0) * 1024L * 1024L;
+
+		return memoryBudget;
+	}
+
+	public synchronized void setMemoryBudget(long bytes) {
+		memoryBudget = bytes;
+		enforceBudget();
+	}
+
+	/**
+	 * @return The estimated bytes of all the loaded assets, cached included.
+	 */
+	public synchronized long getResidentBytes() {
+		long total = 0;
+
+		for (String fileName : getAssetNames())
+			total += getAssetBytes(fileName);
+
+		return total;
+	}
+
+	/**
+	 * @return The estimated bytes of a loaded asset without its dependencies.
+	 *         The atlases memory is in their page textures.
+	 */
+	public synchronized long getAssetBytes(String fileName) {
+		Long size = sizes.get(fileName);
+
+		if (size == null) {
+			size = estimateBytes(fileName);
+			sizes.put(fileName, size);
+		}
+
+		return size;
+	}
+
+	private long estimateBytes(String fileName) {
+		Class<?> type = getAssetType(fileName);
+
+		if (type == Texture.class) {
+			return getTextureBytes(get(fileName, Texture.class));
+		} else if (type == Sound.class) {
+			// the decoded buffer is bigger, the file size is a lower bound
+			return getAsset(fileName).length();
+		} else if (type == Model.class) {
+			long size = 0;
+
+			for (Mesh m : get(fileName, Model.class).meshes)
+				size += m.getNumVertices() * m.getVertexSize() + m.getNumIndices() * 2;
+
+			return size;
+		}
+
+		return 0;
+	}
+
+	private static long getTextureBytes(Texture t) {
+		return getTextureDataBytes(t.getTextureData());
+	}
+
+	static long getTextureDataBytes(TextureData data) {
+		int bpp;
+
+		switch (data.getFormat()) {
+		case Alpha:
+		case Intensity:
+			bpp = 1;
+			break;
+		case LuminanceAlpha:
+		case RGB565:
+		case RGBA4444:
+			bpp = 2;
+			break;
+		case RGB888:
+			bpp = 3;
+			break;
+		default:
+			bpp = 4;
+			break;
+		}
+
+		long size = (long) data.getWidth() * data.getHeight() * bpp;
+
+		if (data.useMipMaps())
+			size = size * 4 / 3;
+
+		return size;
+	}
+
+	/**
+	 * @return A report with the resident memory and the biggest assets.
+	 */
+	public synchronized String getMemoryReport(int lines) {
+		Array<String> names = getAssetNames();
+
+		names.sort(new Comparator<String>() {
+			@Override
+			public int compare(String o1, String o2) {
+				return Long.compare(getAssetBytes(o2), getAssetBytes(o1));
+			}
+		});
+
+		long cachedBytes = 0;
+
+		for (String fileName : cached)
+			cachedBytes += getAssetBytes(fileName);
+
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("Resident: ").append(toMB(getResidentBytes())).append("MB  Budget: ")
+				.append(getMemoryBudget() > 0 ? toMB(getMemoryBudget()) + "MB" : "none").append("  Cached: ")
+				.append(cached.size()).append(" (").append(toMB(cachedBytes)).append("MB)\n");
+
+		for (int i = 0; i < names.size && i < lines; i++) {
+			String fileName = names.get(i);
+
+			sb.append(fileName).append("  ").append(getAssetBytes(fileName) / 1024).append("KB  refs: ")
+					.append(getReferenceCount(fileName));
+
+			if (cached.contains(fileName))
+				sb.append(" (cached)");
+
+			sb.append('\n');
+		}
+
+		return sb.toString();
+	}
+
+	private static String toMB(long bytes) {
+		return String.format(Locale.US, "%.1f", bytes / (1024f * 1024f));
+	}
+
 	public String checkIOSSoundName(String filename) {
 
 		if (Gdx.app.getType() == ApplicationType.iOS && filename.toLowerCase().endsWith(OGG_EXT)) {
@@ -334,6 +778,24 @@ public class EngineAssetManager extends AssetManager {
 			unload(n);
 	}
 
+	public boolean isSoundLoaded(String filename) {
+		String n = checkIOSSoundName(SOUND_DIR + filename);
+
+		return n != null && isLoaded(n);
+	}
+
+	/**
+	 * @return The estimated bytes of a loaded sound or 0 if it is not loaded.
+	 */
+	public long getSoundBytes(String filename) {
+		String n = checkIOSSoundName(SOUND_DIR + filename);
+
+		if (n == null || !isLoaded(n))
+			return 0;
+
+		return getAssetBytes(n);
+	}
+
 	public FileHandle getParticle(String name) {
 		return resResolver.baseResolve(PARTICLE_DIR + name);
 	}
@@ -351,6 +813,62 @@ public class EngineAssetManager extends AssetManager {
 			unload(MODEL3D_DIR + name + MODEL3D_EXT);
 	}
 
+	/**
+	 * Loads in one batch the sounds of a scene manifest, the assets used by
+	 * the actions and dialogs that no renderer loads.
+	 * 
+	 * The atlases, images and 3D models are loaded by their renderers, which
+	 * honor the animation 'preload' and 'disposeWhenPlayed' settings and the
+	 * 'lazy_animations' mode, so they are not prefetched. The music is
+	 * streamed, opening it early would hold a player or decoder per track
+	 * without buffering anything ahead. The voices are prefetched by the
+	 * VoiceManager and the fonts are generated by the FontManager.
+	 * 
+	 * If there is a memory budget, the assets that are not loaded and don't
+	 * fit in the free budget are skipped.
+	 *
+	 * @return The file names of the loaded assets. They must be released with
+	 *         unload().
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public synchronized List<String> prefetch(List<AssetManifest.Asset> assets) {
+		ArrayList<String> loaded = new ArrayList<String>();
+		long budget = getMemoryBudget();
+		long free = budget > 0 ? budget - getResidentBytes() : Long.MAX_VALUE;
+
+		for (AssetManifest.Asset a : assets) {
+			String fileName;
+			Class type;
+
+			switch (a.type) {
+			case SOUND:
+				fileName = checkIOSSoundName(SOUND_DIR + a.name);
+				type = Sound.class;
+				break;
+			default:
+				continue;
+			}
+
+			if (fileName == null || !assetExists(fileName))
+				continue;
+
+			// loaded and cached assets are already in the resident memory
+			if (!isLoaded(fileName)) {
+				if (a.size > free) {
+					EngineLogger.debug("PREFETCH SKIPPED, NO BUDGET: " + fileName);
+					continue;
+				}
+
+				free -= a.size;
+			}
+
+			load(fileName, type);
+			loaded.add(fileName);
+		}
+
+		return loaded;
+	}
+
 	public boolean assetExists(String filename) {
 		return resResolver.exists(filename);
 	}
@@ -387,10 +905,12 @@ public class EngineAssetManager extends AssetManager {
 		FileHandleResolver resolver = resResolver.getBaseResolver();
 
 		String list[] = null;
+		FileHandle dir = resolver.resolve(base);
 
-		if (Gdx.app.getType() != ApplicationType.Desktop) {
+		// the packed assets are listed from the archive index
+		if (dir instanceof ArchiveFileHandle || Gdx.app.getType() != ApplicationType.Desktop) {
 
-			FileHandle[] l = resolver.resolve(base).list();
+			FileHandle[] l = dir.list();
 			list = new String[l.length];
 
 			for (int i = 0; i < l.length; i++)
@@ -30,12 +30,18 @@ public class EngineResolutionFileResolver implements FileHandleResolver {
 	private Resolution bestDesc;
 	private String fixResolution;
 
+	private DownscaledAssetCache downscaledAssetCache;
+
 	public EngineResolutionFileResolver(FileHandleResolver baseResolver) {
 		this.baseResolver = baseResolver;
 	}
 
 	@Override
-	public FileHandle resolve(String fileName) {		
+	public FileHandle resolve(String fileName) {
+		// the dependencies of the downscaled atlases
+		if (downscaledAssetCache != null && downscaledAssetCache.contains(fileName))
+			return downscaledAssetCache.resolve(fileName);
+
 		FileHandle originalHandle = new FileHandle(fileName);
 		FileHandle handle = baseResolver.resolve(resolve(originalHandle, bestDesc.folder));
 		
@@ -139,6 +145,10 @@ public class EngineResolutionFileResolver implements FileHandleResolver {
 		}
 	}
 	
+	public void setDownscaledAssetCache(DownscaledAssetCache cache) {
+		downscaledAssetCache = cache;
+	}
+
 	public void setFixedResolution(String suffix) {
 		fixResolution = suffix;
 	}
@@ -0,0 +1,531 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Blending;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.Glyph;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker.GuillotineStrategy;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeBitmapFontData;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+import com.badlogic.gdx.utils.reflect.ClassReflection;
+import com.badlogic.gdx.utils.reflect.Field;
+import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.bladecoder.engine.util.Config;
+import com.bladecoder.engine.util.EngineLogger;
+
+/**
+ * Shared service for the TrueType fonts used by the skin and the text
+ * renderers.
+ *
+ * - The fonts with the same file and parameters are generated once and
+ * reference counted.
+ *
+ * - The FreeType generator of a font file is shared by all its sizes.
+ *
+ * - The glyphs of all the fonts with the same filters and transparent color are
+ * packed in the same page textures. The incremental fonts rasterize the glyphs
+ * when they are used for the first time.
+ *
+ * - The glyphs rasterized by an incremental font are saved in the user folder
+ * when the font is released and restored the next time the font is generated,
+ * so the common glyphs are not rasterized again. It is disabled if the
+ * 'font_cache' config property is false.
+ */
+public class FontManager {
+	private static final String CACHE_DIR = DownscaledAssetCache.CACHE_DIR + "/fonts";
+	private static final int CACHE_VERSION = 1;
+	private static final int CACHE_WIDTH = 512;
+	private static final String TMP_EXT = ".tmp";
+
+	private static final int PAGE_SIZE = 1024;
+
+	private static FontManager instance;
+
+	private static class SharedFont {
+		String key;
+		BitmapFont font;
+		FreeTypeFontParameter parameter;
+		SharedGenerator generator;
+		SharedPacker packer;
+		int refs;
+
+		/** Glyphs in the cache file, the font is saved if it has more */
+		int cachedGlyphs;
+	}
+
+	private static class SharedGenerator {
+		String path;
+
+		/** The generator keeps the font file in memory */
+		long bytes;
+		FreeTypeFontGenerator generator;
+		int refs;
+	}
+
+	private static class SharedPacker {
+		String key;
+		PixmapPacker packer;
+		int refs;
+	}
+
+	private final HashMap<String, SharedFont> fonts = new HashMap<String, SharedFont>();
+	private final IdentityHashMap<BitmapFont, SharedFont> sharedFonts = new IdentityHashMap<BitmapFont, SharedFont>();
+	private final HashMap<String, SharedGenerator> generators = new HashMap<String, SharedGenerator>();
+	private final HashMap<String, SharedPacker> packers = new HashMap<String, SharedPacker>();
+
+	private final boolean cacheEnabled = Config.getProperty(Config.FONT_CACHE_PROP, true);
+
+	public static FontManager getInstance() {
+		if (instance == null)
+			instance = new FontManager();
+
+		return instance;
+	}
+
+	/**
+	 * Generates the font or returns the shared font with the same file and
+	 * parameters. It must be released with 'release(font)'.
+	 *
+	 * The 'packer' parameter is ignored and the parameter must not be modified
+	 * after the call.
+	 */
+	public synchronized BitmapFont get(FileHandle file, FreeTypeFontParameter parameter) {
+		String key = getKey(file, parameter);
+		SharedFont f = fonts.get(key);
+
+		if (f != null) {
+			f.refs++;
+			return f.font;
+		}
+
+		long initTime = System.currentTimeMillis();
+
+		f = new SharedFont();
+		f.key = key;
+		f.parameter = parameter;
+		f.generator = getGenerator(file);
+		f.packer = getPacker(parameter);
+
+		parameter.packer = f.packer.packer;
+		f.font = f.generator.generator.generateFont(parameter);
+		f.refs = 1;
+
+		if (parameter.incremental && cacheEnabled)
+			restore(f);
+
+		fonts.put(key, f);
+		sharedFonts.put(f.font, f);
+
+		EngineLogger.debug("FONT " + file.name() + " " + parameter.size + " TIME (ms): "
+				+ (System.currentTimeMillis() - initTime));
+
+		return f.font;
+	}
+
+	public synchronized void release(BitmapFont font) {
+		SharedFont f = sharedFonts.get(font);
+
+		if (f == null)
+			return;
+
+		f.refs--;
+
+		if (f.refs > 0)
+			return;
+
+		if (f.parameter.incremental && cacheEnabled)
+			save(f);
+
+		fonts.remove(f.key);
+		sharedFonts.remove(font);
+
+		// the data disposes its packer and it is shared
+		FreeTypeBitmapFontData data = (FreeTypeBitmapFontData) font.getData();
+
+		if (setDataField(data, "packer", null))
+			data.dispose();
+
+		releaseGenerator(f.generator);
+		releasePacker(f.packer);
+	}
+
+	/**
+	 * Saves the glyph cache of the fonts and disposes them.
+	 */
+	public synchronized void dispose() {
+		for (SharedFont f : new ArrayList<SharedFont>(fonts.values())) {
+			f.refs = 1;
+			release(f.font);
+		}
+	}
+
+	/**
+	 * @return The number of generated fonts.
+	 */
+	public synchronized int getLoadedCount() {
+		return fonts.size();
+	}
+
+	/**
+	 * @return The estimated bytes of the font files held by the generators and
+	 *         the glyph pages, their pixmaps and their textures. They are not
+	 *         accounted in the EngineAssetManager memory budget.
+	 */
+	public synchronized long getLoadedBytes() {
+		long total = 0;
+
+		for (SharedGenerator g : generators.values())
+			total += g.bytes;
+
+		for (SharedPacker p : packers.values()) {
+			for (PixmapPacker.Page page : p.packer.getPages()) {
+				long pageBytes = (long) page.getPixmap().getWidth() * page.getPixmap().getHeight() * 4;
+
+				total += page.getTexture() != null ? pageBytes * 2 : pageBytes;
+			}
+		}
+
+		return total;
+	}
+
+	private SharedGenerator getGenerator(FileHandle file) {
+		SharedGenerator g = generators.get(file.path());
+
+		if (g == null) {
+			g = new SharedGenerator();
+			g.path = file.path();
+			g.generator = new FreeTypeFontGenerator(file);
+			g.bytes = file.length();
+			generators.put(g.path, g);
+		}
+
+		g.refs++;
+
+		return g;
+	}
+
+	private void releaseGenerator(SharedGenerator g) {
+		g.refs--;
+
+		if (g.refs == 0) {
+			g.generator.dispose();
+			generators.remove(g.path);
+		}
+	}
+
+	/**
+	 * The fonts sharing the pages must use the same texture filters and the
+	 * same color in the transparent pixels to avoid halos when filtering.
+	 */
+	private SharedPacker getPacker(FreeTypeFontParameter parameter) {
+		Color transparent = new Color(parameter.borderWidth > 0 ? parameter.borderColor : parameter.color);
+		transparent.a = 0;
+
+		String key = parameter.minFilter + "|" + parameter.magFilter + "|" + parameter.genMipMaps + "|" + transparent;
+		SharedPacker p = packers.get(key);
+
+		if (p == null) {
+			p = new SharedPacker();
+			p.key = key;
+			p.packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Format.RGBA8888, 1, false, new GuillotineStrategy());
+			p.packer.setTransparentColor(transparent);
+			packers.put(key, p);
+		}
+
+		p.refs++;
+
+		return p;
+	}
+
+	private void releasePacker(SharedPacker p) {
+		p.refs--;
+
+		if (p.refs == 0) {
+			p.packer.dispose();
+			packers.remove(p.key);
+		}
+	}
+
+	private static String getKey(FileHandle file, FreeTypeFontParameter p) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(file.path()).append('|').append(file.length()).append('|').append(p.size).append('|')
+				.append(p.mono).append('|').append(p.hinting).append('|').append(p.color).append('|')
+				.append(p.gamma).append('|').append(p.renderCount).append('|').append(p.borderWidth).append('|')
+				.append(p.borderColor).append('|').append(p.borderStraight).append('|').append(p.borderGamma)
+				.append('|').append(p.shadowOffsetX).append('|').append(p.shadowOffsetY).append('|')
+				.append(p.shadowColor).append('|').append(p.spaceX).append('|').append(p.spaceY).append('|')
+				.append(p.characters).append('|').append(p.kerning).append('|').append(p.flip).append('|')
+				.append(p.genMipMaps).append('|').append(p.minFilter).append('|').append(p.magFilter).append('|')
+				.append(p.incremental);
+
+		return sb.toString();
+	}
+
+	private static FileHandle getCacheFile(String key, String ext) {
+		return EngineAssetManager.getInstance().getUserFolder().child(CACHE_DIR)
+				.child(Integer.toHexString(key.hashCode()) + ext);
+	}
+
+	private static ArrayList<Glyph> getGlyphs(BitmapFont font) {
+		ArrayList<Glyph> l = new ArrayList<Glyph>();
+
+		for (Glyph[] page : font.getData().glyphs) {
+			if (page == null)
+				continue;
+
+			for (Glyph g : page) {
+				if (g != null)
+					l.add(g);
+			}
+		}
+
+		return l;
+	}
+
+	/**
+	 * Adds the cached glyphs to the font. The glyph images are packed in the
+	 * shared pages.
+	 */
+	@SuppressWarnings("unchecked")
+	private void restore(SharedFont f) {
+		FileHandle jsonFile = getCacheFile(f.key, ".json");
+		FileHandle imageFile = getCacheFile(f.key, ".png");
+
+		if (!jsonFile.exists() || !imageFile.exists())
+			return;
+
+		Pixmap image = null;
+
+		try {
+			JsonValue root = new JsonReader().parse(jsonFile);
+
+			if (root.getInt("version", 0) != CACHE_VERSION || !f.key.equals(root.getString("key", null)))
+				return;
+
+			image = new Pixmap(imageFile);
+
+			FreeTypeBitmapFontData data = (FreeTypeBitmapFontData) f.font.getData();
+			PixmapPacker packer = f.packer.packer;
+
+			// the incremental glyphs calculate its kerning with these glyphs
+			Array<Glyph> generated = (Array<Glyph>) getDataField(data, "glyphs");
+
+			HashSet<Integer> existing = new HashSet<Integer>();
+
+			for (Glyph g : getGlyphs(f.font))
+				existing.add(g.id);
+
+			HashMap<Integer, Glyph> restored = new HashMap<Integer, Glyph>();
+
+			for (JsonValue v = root.get("glyphs").child; v != null; v = v.next) {
+				int[] a = v.asIntArray();
+
+				if (existing.contains(a[0]))
+					continue;
+
+				Glyph g = new Glyph();
+				g.id = a[0];
+				g.width = a[3];
+				g.height = a[4];
+				g.xoffset = a[5];
+				g.yoffset = a[6];
+				g.xadvance = a[7];
+
+				if (g.width > 0 && g.height > 0) {
+					Pixmap p = new Pixmap(g.width, g.height, image.getFormat());
+
+					try {
+						p.setBlending(Blending.None);
+						p.drawPixmap(image, 0, 0, a[1], a[2], g.width, g.height);
+
+						Rectangle rect = packer.pack(p);
+
+						// the packer strategy always packs in the last page
+						g.page = packer.getPages().size - 1;
+						g.srcX = (int) rect.x;
+						g.srcY = (int) rect.y;
+					} finally {
+						p.dispose();
+					}
+				}
+
+				data.setGlyph(g.id, g);
+				restored.put(g.id, g);
+
+				if (generated != null)
+					generated.add(g);
+			}
+
+			JsonValue kernings = root.get("kernings");
+
+			if (kernings != null) {
+				int[] k = kernings.asIntArray();
+
+				for (int i = 0; i + 2 < k.length; i += 3) {
+					Glyph g = restored.get(k[i]);
+
+					if (g != null && restored.containsKey(k[i + 1]))
+						g.setKerning(k[i + 1], k[i + 2]);
+				}
+			}
+
+			Array<TextureRegion> regions = f.font.getRegions();
+			packer.updateTextureRegions(regions, f.parameter.minFilter, f.parameter.magFilter,
+					f.parameter.genMipMaps);
+
+			for (Glyph g : restored.values())
+				data.setGlyphRegion(g, regions.get(g.page));
+
+			f.cachedGlyphs = existing.size() + restored.size();
+		} catch (Exception e) {
+			EngineLogger.error("Error restoring font cache: " + jsonFile.path(), e);
+		} finally {
+			if (image != null)
+				image.dispose();
+		}
+	}
+
+	/**
+	 * Saves the glyphs of the font if it has new glyphs since it was restored.
+	 */
+	private void save(SharedFont f) {
+		ArrayList<Glyph> glyphs = getGlyphs(f.font);
+
+		if (glyphs.size() <= f.cachedGlyphs)
+			return;
+
+		FileHandle jsonFile = getCacheFile(f.key, ".json");
+		FileHandle imageFile = getCacheFile(f.key, ".png");
+
+		// shelf layout of the glyph images
+		int[] pos = new int[glyphs.size() * 2];
+		int x = 0, y = 0, rowHeight = 0;
+
+		for (int i = 0; i < glyphs.size(); i++) {
+			Glyph g = glyphs.get(i);
+
+			if (x + g.width > CACHE_WIDTH) {
+				x = 0;
+				y += rowHeight;
+				rowHeight = 0;
+			}
+
+			pos[i * 2] = x;
+			pos[i * 2 + 1] = y;
+			x += g.width;
+			rowHeight = Math.max(rowHeight, g.height);
+		}
+
+		Pixmap image = new Pixmap(CACHE_WIDTH, Math.max(1, y + rowHeight), Format.RGBA8888);
+
+		try {
+			image.setBlending(Blending.None);
+
+			Array<PixmapPacker.Page> pages = f.packer.packer.getPages();
+			StringWriter sw = new StringWriter();
+			JsonWriter w = new JsonWriter(sw);
+
+			w.object().set("version", CACHE_VERSION).set("key", f.key).array("glyphs");
+
+			for (int i = 0; i < glyphs.size(); i++) {
+				Glyph g = glyphs.get(i);
+
+				if (g.width > 0 && g.height > 0)
+					image.drawPixmap(pages.get(g.page).getPixmap(), pos[i * 2], pos[i * 2 + 1], g.srcX, g.srcY,
+							g.width, g.height);
+
+				w.array().value(g.id).value(pos[i * 2]).value(pos[i * 2 + 1]).value(g.width).value(g.height)
+						.value(g.xoffset).value(g.yoffset).value(g.xadvance).pop();
+			}
+
+			w.pop().array("kernings");
+
+			for (Glyph g : glyphs) {
+				for (Glyph o : glyphs) {
+					int k = g.getKerning((char) o.id);
+
+					if (k != 0)
+						w.value(g.id).value(o.id).value(k);
+				}
+			}
+
+			w.pop().pop();
+			w.close();
+
+			// written to temporary files, so an interrupted write is not
+			// taken as a cached font
+			FileHandle tmp = imageFile.sibling(imageFile.name() + TMP_EXT);
+			PixmapIO.writePNG(tmp, image);
+			imageFile.delete();
+			tmp.moveTo(imageFile);
+
+			tmp = jsonFile.sibling(jsonFile.name() + TMP_EXT);
+			tmp.writeString(sw.toString(), false, "UTF-8");
+			jsonFile.delete();
+			tmp.moveTo(jsonFile);
+
+			f.cachedGlyphs = glyphs.size();
+		} catch (Exception e) {
+			EngineLogger.error("Error saving font cache: " + jsonFile.path(), e);
+		} finally {
+			image.dispose();
+		}
+	}
+
+	private static Object getDataField(FreeTypeBitmapFontData data, String name) {
+		try {
+			Field field = ClassReflection.getDeclaredField(FreeTypeBitmapFontData.class, name);
+			field.setAccessible(true);
+
+			return field.get(data);
+		} catch (ReflectionException e) {
+			EngineLogger.error("Cannot access the font field: " + name);
+			return null;
+		}
+	}
+
+	private static boolean setDataField(FreeTypeBitmapFontData data, String name, Object value) {
+		try {
+			Field field = ClassReflection.getDeclaredField(FreeTypeBitmapFontData.class, name);
+			field.setAccessible(true);
+			field.set(data, value);
+
+			return true;
+		} catch (ReflectionException e) {
+			EngineLogger.error("Cannot access the font field: " + name);
+			return false;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.bladecoder.engine.util.Config;
+
+/**
+ * File handle that reads the files bigger than the 'mmap_min_size' config
+ * property (in KB) from a read only memory mapped buffer instead of a
+ * FileInputStream. The stream reads directly from the mapped pages, so the
+ * loaders get the file content without the intermediate stream buffers.
+ *
+ * Files inside the jar (classpath) and files smaller than the property are
+ * read as usual. It is disabled if the property is 0.
+ */
+public class MappedFileHandle extends FileHandle {
+
+	public MappedFileHandle(FileHandle handle) {
+		super(new File(handle.path()), handle.type());
+	}
+
+	@Override
+	public InputStream read() {
+		ByteBuffer buffer = mapIfBig();
+
+		if (buffer != null)
+			return new ByteBufferInputStream(buffer);
+
+		return super.read();
+	}
+
+	/**
+	 * @return The mapped file or null if the file must be read as usual.
+	 */
+	private ByteBuffer mapIfBig() {
+		if (type == FileType.Classpath)
+			return null;
+
+		// the property is read in every call because the config file itself
+		// is read through this handle
+		long minSize = Config.getProperty(Config.MMAP_MIN_SIZE_PROP, 0) * 1024L;
+
+		if (minSize <= 0)
+			return null;
+
+		File f = file();
+
+		// internal files not found in the filesystem are in the classpath
+		if (!f.isFile() || f.length() < minSize)
+			return null;
+
+		RandomAccessFile raf = null;
+
+		try {
+			raf = new RandomAccessFile(f, "r");
+
+			// the mapping is valid after closing the channel
+			return raf.getChannel().map(MapMode.READ_ONLY, 0, f.length());
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Error memory-mapping file: " + this, e);
+		} finally {
+			StreamUtils.closeQuietly(raf);
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		private int mark = 0;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0)
+				return 0;
+
+			if (!buffer.hasRemaining())
+				return -1;
+
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+
+			return len;
+		}
+
+		@Override
+		public long skip(long n) {
+			if (n <= 0)
+				return 0;
+
+			int s = (int) Math.min(n, buffer.remaining());
+			buffer.position(buffer.position() + s);
+
+			return s;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+
+		@Override
+		public boolean markSupported() {
+			return true;
+		}
+
+		@Override
+		public synchronized void mark(int readlimit) {
+			mark = buffer.position();
+		}
+
+		@Override
+		public synchronized void reset() {
+			buffer.position(mark);
+		}
+	}
+}
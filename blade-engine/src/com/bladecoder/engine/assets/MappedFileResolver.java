@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import com.badlogic.gdx.Application.ApplicationType;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Resolves the files with a base resolver and, in desktop, returns them as
+ * MappedFileHandle so the big files are read from a memory mapped buffer.
+ */
+public class MappedFileResolver implements FileHandleResolver {
+	private final FileHandleResolver baseResolver;
+
+	public MappedFileResolver(FileHandleResolver baseResolver) {
+		this.baseResolver = baseResolver;
+	}
+
+	@Override
+	public FileHandle resolve(String fileName) {
+		FileHandle handle = baseResolver.resolve(fileName);
+
+		if (Gdx.app != null && Gdx.app.getType() == ApplicationType.Desktop)
+			return new MappedFileHandle(handle);
+
+		return handle;
+	}
+}
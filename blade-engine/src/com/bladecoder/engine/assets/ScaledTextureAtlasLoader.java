@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureAtlasLoader.TextureAtlasParameter;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Page;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * TextureAtlasLoader that loads the atlas pages downscaled when the atlas has
+ * a scale lower than 1 in the EngineAssetManager.
+ *
+ * The pages are downscaled in the AssetManager executor thread and cached in
+ * the user folder. The regions keep the sizes and offsets of the atlas file,
+ * only the texture coordinates are calculated with the original page size,
+ * so the renderers draw the atlas in the same size with less texture memory.
+ */
+public class ScaledTextureAtlasLoader extends AsynchronousAssetLoader<TextureAtlas, TextureAtlasParameter> {
+	private TextureAtlasData data;
+
+	@SuppressWarnings("rawtypes")
+	private Array<AssetDescriptor> dependencies;
+
+	private float scale;
+
+	public ScaledTextureAtlasLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle atlasFile,
+			TextureAtlasParameter parameter) {
+		FileHandle imgDir = atlasFile.parent();
+
+		data = new TextureAtlasData(atlasFile, imgDir, parameter != null && parameter.flip);
+		scale = EngineAssetManager.getInstance().getAtlasScale(fileName);
+		dependencies = new Array<AssetDescriptor>();
+
+		for (Page page : data.getPages()) {
+			FileHandle textureFile = page.textureFile;
+
+			if (scale < 1)
+				textureFile = EngineAssetManager.getInstance().getDownscaledAssetCache().getImage(textureFile,
+						scale);
+
+			TextureParameter params = new TextureParameter();
+			params.format = page.format;
+			params.genMipMaps = page.useMipMaps;
+			params.minFilter = page.minFilter;
+			params.magFilter = page.magFilter;
+
+			dependencies.add(new AssetDescriptor(textureFile, Texture.class, params));
+		}
+
+		return dependencies;
+	}
+
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureAtlasParameter parameter) {
+	}
+
+	@Override
+	public TextureAtlas loadSync(AssetManager manager, String fileName, FileHandle file,
+			TextureAtlasParameter parameter) {
+		Array<Page> pages = data.getPages();
+
+		for (int i = 0; i < pages.size; i++)
+			pages.get(i).texture = manager.get(dependencies.get(i).fileName, Texture.class);
+
+		TextureAtlas atlas = new TextureAtlas(data);
+
+		if (scale < 1)
+			setOriginalCoords(atlas);
+
+		data = null;
+		dependencies = null;
+
+		return atlas;
+	}
+
+	/**
+	 * The texture coordinates of the regions are calculated with the size of
+	 * the page textures. Calculates them with the original page size.
+	 */
+	private void setOriginalCoords(TextureAtlas atlas) {
+		Array<Region> regions = data.getRegions();
+		Array<AtlasRegion> atlasRegions = atlas.getRegions();
+
+		for (int i = 0; i < regions.size; i++) {
+			Region r = regions.get(i);
+			AtlasRegion ar = atlasRegions.get(i);
+
+			// old atlas files don't have the page size
+			float pageWidth = r.page.width > 0 ? r.page.width : r.page.texture.getWidth() / scale;
+			float pageHeight = r.page.height > 0 ? r.page.height : r.page.texture.getHeight() / scale;
+
+			int width = r.rotate ? r.height : r.width;
+			int height = r.rotate ? r.width : r.height;
+
+			ar.setRegion(r.left / pageWidth, r.top / pageHeight, (r.left + width) / pageWidth,
+					(r.top + height) / pageHeight);
+
+			if (r.flip)
+				ar.flip(false, true);
+		}
+	}
+}
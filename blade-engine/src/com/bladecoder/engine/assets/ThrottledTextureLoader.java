@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import java.util.HashMap;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader.TextureParameter;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.utils.Array;
+import com.bladecoder.engine.util.Config;
+
+/**
+ * TextureLoader that limits the bytes uploaded to the GPU in every frame.
+ *
+ * The images are decoded in the AssetManager executor thread. When the
+ * 'texture_upload_per_frame' config property (in KB) is set, the upload of a
+ * texture is delayed to the next frame if it exceeds the frame limit, so a
+ * scene with many big atlas pages doesn't upload all of them in the same
+ * frame. At least one texture is uploaded per frame.
+ *
+ * Only the loads advanced by 'EngineAssetManager.updateFrame()' are
+ * throttled. The blocking loads (finishLoading, update(millis)) call update()
+ * several times in the same frame and they would never end.
+ */
+public class ThrottledTextureLoader extends AsynchronousAssetLoader<Texture, TextureParameter> {
+
+	/** Decoded data waiting for the upload */
+	private final HashMap<String, TextureData> decoded = new HashMap<String, TextureData>();
+
+	private long frameId = -1;
+	private long uploadedBytes;
+
+	public ThrottledTextureLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+		TextureData data;
+
+		if (parameter == null || parameter.textureData == null) {
+			Format format = null;
+			boolean genMipMaps = false;
+
+			if (parameter != null) {
+				format = parameter.format;
+				genMipMaps = parameter.genMipMaps;
+			}
+
+			data = TextureData.Factory.loadFromFile(file, format, genMipMaps);
+		} else {
+			data = parameter.textureData;
+		}
+
+		if (!data.isPrepared())
+			data.prepare();
+
+		synchronized (decoded) {
+			decoded.put(fileName, data);
+		}
+	}
+
+	/**
+	 * @return null to wait for the next frame.
+	 */
+	@Override
+	public Texture loadSync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+		TextureData data;
+
+		synchronized (decoded) {
+			data = decoded.get(fileName);
+		}
+
+		long bytes = EngineAssetManager.getTextureDataBytes(data);
+		long maxBytes = Config.getProperty(Config.TEXTURE_UPLOAD_PER_FRAME_PROP, 0) * 1024L;
+
+		if (Gdx.graphics.getFrameId() != frameId) {
+			frameId = Gdx.graphics.getFrameId();
+			uploadedBytes = 0;
+		}
+
+		boolean throttled = maxBytes > 0 && manager instanceof EngineAssetManager
+				&& ((EngineAssetManager) manager).isFrameUpdate();
+
+		if (throttled && uploadedBytes > 0 && uploadedBytes + bytes > maxBytes)
+			return null;
+
+		synchronized (decoded) {
+			decoded.remove(fileName);
+		}
+
+		uploadedBytes += bytes;
+
+		Texture texture;
+
+		if (parameter != null && parameter.texture != null) {
+			// reloading after a context loss
+			texture = parameter.texture;
+			texture.load(data);
+		} else {
+			texture = new Texture(data);
+		}
+
+		if (parameter != null) {
+			texture.setFilter(parameter.minFilter, parameter.magFilter);
+			texture.setWrap(parameter.wrapU, parameter.wrapV);
+		}
+
+		return texture;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, TextureParameter parameter) {
+		return null;
+	}
+}
@@ -25,6 +25,7 @@ import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.util.ActionCallbackSerialization;
 import com.bladecoder.engine.util.ActionUtils;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.ScriptProfiler;
 import com.bladecoder.ink.runtime.Choice;
 import com.bladecoder.ink.runtime.Story;
 
@@ -32,7 +33,7 @@ public class InkManager implements VerbRunner, Serializable {
 	public final static char NAME_VALUE_TAG_SEPARATOR = ':';
 	public final static char NAME_VALUE_PARAM_SEPARATOR = '=';
 	private final static String PARAM_SEPARATOR = ",";
-	private final static char COMMAND_MARK = '>';
+	public final static char COMMAND_MARK = '>';
 
 	private Story story = null;
 	private ExternalFunctions externalFunctions;
@@ -243,9 +244,12 @@ public class InkManager implements VerbRunner, Serializable {
 			continueMaximally();
 		} else {
 			boolean stop = false;
+			final boolean profile = ScriptProfiler.isEnabled();
+			final long stepTime = profile ? System.nanoTime() : 0;
 
 			while (ip < actions.size() && !stop) {
 				Action a = actions.get(ip);
+				final long actionTime = profile ? System.nanoTime() : 0;
 
 				try {
 					if (a.run(this))
@@ -256,8 +260,14 @@ public class InkManager implements VerbRunner, Serializable {
 					EngineLogger.error("EXCEPTION EXECUTING ACTION: " + a.getClass().getSimpleName(), e);
 					ip++;
 				}
+
+				if (profile)
+					ScriptProfiler.actionRun(a, System.nanoTime() - actionTime);
 			}
 
+			if (profile)
+				ScriptProfiler.verbStep(this, System.nanoTime() - stepTime);
+
 			if (ip >= actions.size() && !stop)
 				continueMaximally();
 		}
@@ -275,6 +285,8 @@ public class InkManager implements VerbRunner, Serializable {
 
 		this.cb = cb;
 
+		ScriptProfiler.verbRun(this);
+
 		story.choosePathString(path);
 		continueMaximally();
 	}
@@ -33,18 +33,47 @@ import com.bladecoder.engine.anim.AtlasAnimationDesc;
 import com.bladecoder.engine.anim.FATween;
 import com.bladecoder.engine.anim.Tween;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.RectangleRenderer;
 import com.bladecoder.engine.util.SerializationHelper;
 import com.bladecoder.engine.util.SerializationHelper.Mode;
 
+/**
+ * Renders the frames of atlas animations.
+ *
+ * When the 'lazy_animations' config property is set, only the source of the
+ * current animation is loaded with the scene. The other sources are loaded
+ * the first time an animation needs them: the loading waits a few ms and, if
+ * the atlas is not ready, the current frame is shown until it is loaded. The
+ * sources no longer used are released to the EngineAssetManager cache, which
+ * keeps the recently used ones while the memory budget allows it.
+ */
 public class AtlasRenderer extends AnimationRenderer {
 
+	/** Max time waiting for a not loaded source before showing the fallback frame */
+	private static final int LAZY_LOAD_WAIT_MS = 20;
+
 	private AtlasRegion tex;
 	private FATween faTween;
 
 	private int currentFrameIndex;
 
+	/** Animation waiting for its source to be loaded */
+	private PendingAnimation pending;
+
+	private static class PendingAnimation {
+		String id;
+		String source;
+		Tween.Type repeatType;
+		int count;
+		ActionCallback cb;
+
+		/** The source has been referenced for this animation */
+		boolean referenced;
+	}
+
 	public AtlasRenderer() {
 
 	}
@@ -69,6 +98,13 @@ public class AtlasRenderer extends AnimationRenderer {
 
 	@Override
 	public void update(float delta) {
+		if (pending != null) {
+			EngineAssetManager.getInstance().updateFrame();
+
+			if (EngineAssetManager.getInstance().isAtlasLoaded(pending.source))
+				startPending();
+		}
+
 		if (faTween != null) {
 			faTween.update(delta);
 			if (faTween.isComplete()) {
@@ -132,6 +168,7 @@ public class AtlasRenderer extends AnimationRenderer {
 		if (id == null)
 			id = initAnimation;
 
+		boolean currentFlipX = flipX;
 		AtlasAnimationDesc fa = getAnimation(id);
 
 		if (fa == null) {
@@ -140,9 +177,33 @@ public class AtlasRenderer extends AnimationRenderer {
 			return;
 		}
 
-		if (currentAnimation != null && currentAnimation.disposeWhenPlayed) {
-			disposeSource(currentAnimation.source);
-			((AtlasAnimationDesc) currentAnimation).regions = null;
+		// a pending animation replaced by this one
+		boolean referenced = cancelPending(fa.source);
+
+		if (isLazy() && fa.regions == null) {
+			if (!referenced)
+				referenced = loadSourceRef(fa.source);
+
+			if (!loadSourceAsync(fa.source)) {
+				// the current frame is shown until the source is loaded
+				flipX = currentFlipX;
+				faTween = null;
+
+				pending = new PendingAnimation();
+				pending.id = id;
+				pending.source = fa.source;
+				pending.repeatType = repeatType;
+				pending.count = count;
+				pending.cb = cb;
+				pending.referenced = referenced;
+
+				return;
+			}
+		}
+
+		if (currentAnimation != null && !currentAnimation.source.equals(fa.source) && (currentAnimation.disposeWhenPlayed
+				|| (isLazy() && EngineAssetManager.getInstance().getMemoryBudget() > 0))) {
+			releaseSource(currentAnimation.source);
 		}
 
 		currentAnimation = fa;
@@ -312,14 +373,93 @@ public class AtlasRenderer extends AnimationRenderer {
 		entry.refCounter--;
 	}
 
+	/**
+	 * Disposes the source and, if it is not referenced anymore, the regions of
+	 * its animations.
+	 */
+	private void releaseSource(String source) {
+		disposeSource(source);
+
+		if (sourceCache.get(source).refCounter < 1) {
+			for (AnimationDesc fa : fanims.values()) {
+				if (fa.source.equals(source))
+					((AtlasAnimationDesc) fa).regions = null;
+			}
+		}
+	}
+
+	/**
+	 * Loads the source if it is not referenced.
+	 * 
+	 * @return true if the source has been referenced.
+	 */
+	private boolean loadSourceRef(String source) {
+		CacheEntry entry = sourceCache.get(source);
+
+		if (entry == null || entry.refCounter < 1) {
+			loadSource(source);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Waits LAZY_LOAD_WAIT_MS at most for the source.
+	 * 
+	 * @return true if the source is loaded.
+	 */
+	private boolean loadSourceAsync(String source) {
+		EngineAssetManager am = EngineAssetManager.getInstance();
+
+		if (!am.isAtlasLoaded(source))
+			am.update(LAZY_LOAD_WAIT_MS);
+
+		return am.isAtlasLoaded(source);
+	}
+
+	private void startPending() {
+		startAnimation(pending.id, pending.repeatType, pending.count, pending.cb);
+	}
+
+	/**
+	 * Discards the pending animation. The source referenced for it is released
+	 * if the next animation uses another source.
+	 * 
+	 * @return true if the pending animation referenced 'nextSource' and the
+	 *         reference is passed to the next animation.
+	 */
+	private boolean cancelPending(String nextSource) {
+		PendingAnimation p = pending;
+		pending = null;
+
+		if (p == null || !p.referenced)
+			return false;
+
+		if (p.source.equals(nextSource))
+			return true;
+
+		releaseSource(p.source);
+
+		return false;
+	}
+
+	private static boolean isLazy() {
+		return Config.getProperty(Config.LAZY_ANIMATIONS_PROP, false);
+	}
+
 	@Override
 	public void loadAssets() {
 		for (AnimationDesc fa : fanims.values()) {
-			if (fa.preload)
+			if (fa.preload && !isLazy())
 				loadSource(fa.source);
 		}
 
-		if (currentAnimation != null && !currentAnimation.preload) {
+		// the pending animation of a saved game is loaded with the scene
+		if (pending != null && !pending.referenced)
+			pending.referenced = loadSourceRef(pending.source);
+
+		if (currentAnimation != null && (!currentAnimation.preload || isLazy())) {
 			loadSource(currentAnimation.source);
 		} else if (currentAnimation == null && initAnimation != null) {
 			String a = initAnimation;
@@ -330,7 +470,7 @@ public class AtlasRenderer extends AnimationRenderer {
 
 			AnimationDesc fa = fanims.get(a);
 
-			if (fa != null && !fa.preload)
+			if (fa != null && (!fa.preload || isLazy()))
 				loadSource(fa.source);
 		}
 	}
@@ -338,11 +478,11 @@ public class AtlasRenderer extends AnimationRenderer {
 	@Override
 	public void retrieveAssets() {
 		for (AnimationDesc fa : fanims.values()) {
-			if (fa.preload)
+			if (fa.preload && !isLazy())
 				retrieveFA((AtlasAnimationDesc) fa);
 		}
 
-		if (currentAnimation != null && !currentAnimation.preload) {
+		if (currentAnimation != null && (!currentAnimation.preload || isLazy())) {
 			retrieveFA((AtlasAnimationDesc) currentAnimation);
 		} else if (currentAnimation == null && initAnimation != null) {
 			String a = initAnimation;
@@ -353,21 +493,26 @@ public class AtlasRenderer extends AnimationRenderer {
 
 			AtlasAnimationDesc fa = (AtlasAnimationDesc) fanims.get(a);
 
-			if (fa != null && !fa.preload)
+			if (fa != null && (!fa.preload || isLazy()))
 				retrieveFA(fa);
 		}
 
 		if (currentAnimation != null) {
 			setFrame(currentFrameIndex);
-		} else if (initAnimation != null) {
+		} else if (initAnimation != null && pending == null) {
 			startAnimation(initAnimation, Tween.Type.SPRITE_DEFINED, 1, null);
 		}
 
+		if (pending != null)
+			startPending();
+
 		computeBbox();
 	}
 
 	@Override
 	public void dispose() {
+		pending = null;
+
 		for (String key : sourceCache.keySet()) {
 			if (sourceCache.get(key).refCounter > 0)
 				EngineAssetManager.getInstance().disposeAtlas(key);
@@ -385,6 +530,15 @@ public class AtlasRenderer extends AnimationRenderer {
 		} else {
 			json.writeValue("currentFrameIndex", currentFrameIndex);
 
+			// the pending animation is started when loading the saved game
+			if (pending != null) {
+				json.writeValue("pendingAnimation", pending.id);
+				json.writeValue("pendingRepeatType", pending.repeatType);
+				json.writeValue("pendingCount", pending.count);
+				json.writeValue("pendingCb", ActionCallbackSerialization.find(pending.cb),
+						pending.cb == null ? null : String.class);
+			}
+
 			if(faTween != null)
 				json.writeValue("faTween", faTween);
 		}
@@ -404,6 +558,18 @@ public class AtlasRenderer extends AnimationRenderer {
 
 			if (faTween != null)
 				faTween.setTarget(this);
+
+			String pendingId = json.readValue("pendingAnimation", String.class, jsonData);
+			AnimationDesc fa = pendingId == null ? null : fanims.get(pendingId);
+
+			if (fa != null) {
+				pending = new PendingAnimation();
+				pending.id = pendingId;
+				pending.source = fa.source;
+				pending.repeatType = json.readValue("pendingRepeatType", Tween.Type.class, jsonData);
+				pending.count = json.readValue("pendingCount", Integer.class, jsonData);
+				pending.cb = ActionCallbackSerialization.find(json.readValue("pendingCb", String.class, jsonData));
+			}
 		}
 	}
 }
\ No newline at end of file
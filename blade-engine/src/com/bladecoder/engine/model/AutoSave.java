@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.io.IOException;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.Config;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
+
+/**
+ * Saves the game in background in a rotation of N autosave slots.
+ *
+ * The game state and the thumbnail pixmap are captured in the game thread:
+ * the state can not change while it is serialized and the thumbnail needs the
+ * GL context. That is the STATE serialization of the world (only the changed
+ * scenes and actors with delta saved games), one offscreen render of the scene
+ * and the readback of the thumbnail. The time spent is logged in debug mode.
+ * The compression, the file write and the PNG encoding are done in a
+ * background thread. Files are written to a temporary file and renamed, so a
+ * slot is never left half written.
+ *
+ * The autosave is triggered when entering a scene and, if the
+ * 'autosave_interval' config property is set, every 'autosave_interval'
+ * seconds. The 'autosave_slots' config property sets the number of slots.
+ * It is disabled by default (0 slots), the games opt in setting it.
+ */
+public class AutoSave {
+	public static final String FILENAME_PREFIX = "autosave";
+
+	public static final int DEFAULT_SLOTS = 0;
+
+	private final int slots;
+	private final float interval;
+
+	private float time;
+	private boolean requested;
+
+	private AsyncExecutor executor;
+	private AsyncResult<Void> pending;
+
+	public AutoSave() {
+		slots = Config.getProperty(Config.AUTOSAVE_SLOTS_PROP, DEFAULT_SLOTS);
+		interval = Config.getProperty(Config.AUTOSAVE_INTERVAL_PROP, 0);
+	}
+
+	public boolean isEnabled() {
+		return slots > 0;
+	}
+
+	/**
+	 * The autosave will be done in the next update.
+	 */
+	public void request() {
+		requested = isEnabled();
+	}
+
+	public void update(float delta) {
+		if (!isEnabled())
+			return;
+
+		if (interval > 0) {
+			time += delta;
+
+			if (time >= interval)
+				requested = true;
+		}
+
+		if (requested) {
+			// wait for the previous autosave
+			if (pending != null && !pending.isDone())
+				return;
+
+			requested = false;
+			time = 0;
+
+			save();
+		}
+	}
+
+	private void save() {
+		final World w = World.getInstance();
+		final String filename = getNextSlot();
+
+		final byte[] state;
+		long t0 = System.currentTimeMillis();
+
+		try {
+			state = w.getGameStateSnapshot();
+		} catch (IOException e) {
+			EngineLogger.error("AUTOSAVE: " + e.getMessage());
+			return;
+		}
+
+		final Pixmap thumb = w.getScreenshot(World.SCREENSHOT_DEFAULT_WIDTH);
+		final SaveGameIndex.Entry entry = w.createSaveGameIndexEntry(filename);
+
+		EngineLogger.debug("AUTOSAVE: " + filename + " GAME THREAD TIME (ms): " + (System.currentTimeMillis() - t0));
+
+		if (executor == null)
+			executor = new AsyncExecutor(1);
+
+		pending = executor.submit(new AsyncTask<Void>() {
+			@Override
+			public Void call() throws Exception {
+				try {
+					FileHandle file = EngineAssetManager.getInstance().getUserFile(filename);
+					FileHandle tmp = file.sibling(file.name() + World.TMP_EXT);
+
+					w.writeGameState(tmp, state);
+					FileUtils.replace(tmp, file);
+
+					FileHandle thumbFile = file.sibling(file.name() + ".png");
+					tmp = file.sibling(thumbFile.name() + World.TMP_EXT);
+
+					PixmapIO.writePNG(tmp, thumb);
+					FileUtils.replace(tmp, thumbFile);
+
+					SaveGameIndex.put(entry);
+				} catch (Exception e) {
+					EngineLogger.error("AUTOSAVE: Error saving " + filename, e);
+				} finally {
+					thumb.dispose();
+				}
+
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * @return The empty or the oldest slot.
+	 */
+	private String getNextSlot() {
+		String next = null;
+		long nextTime = Long.MAX_VALUE;
+
+		for (int i = 0; i < slots; i++) {
+			String filename = FILENAME_PREFIX + i + World.GAMESTATE_EXT;
+			FileHandle file = EngineAssetManager.getInstance().getUserFile(filename);
+
+			if (!file.exists())
+				return filename;
+
+			if (file.lastModified() < nextTime) {
+				next = filename;
+				nextTime = file.lastModified();
+			}
+		}
+
+		return next;
+	}
+
+	/**
+	 * Waits for the pending autosave.
+	 */
+	public void dispose() {
+		if (executor != null) {
+			executor.dispose();
+			executor = null;
+		}
+
+		pending = null;
+		requested = false;
+		time = 0;
+	}
+}
@@ -22,6 +22,8 @@ import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.assets.AssetConsumer;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.ActionUtils;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.SerializationHelper;
 import com.bladecoder.engine.util.SerializationHelper.Mode;
@@ -221,7 +223,11 @@ public class InteractiveActor extends BaseActor implements AssetConsumer, Compar
 	}
 
 	public void setState(String state) {
+		if (ActionUtils.compareNullStr(this.state, state))
+			return;
+
 		this.state = state;
+		World.getInstance().firePropertyChange(this, PropertyChangeListener.STATE_PROPERTY, state);
 	}
 
 	@Override
@@ -322,6 +328,10 @@ public class InteractiveActor extends BaseActor implements AssetConsumer, Compar
 		}
 
 		verbs.read(json, jsonData);
+
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL)
+			ActionCallbackSerialization.register(this, verbs);
+
 		interaction = json.readValue("interaction", boolean.class, interaction, jsonData);
 		state = json.readValue("state", String.class, jsonData);
 		zIndex = json.readValue("zIndex", float.class, zIndex, jsonData);
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.badlogic.gdx.utils.Json;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
+
+/**
+ * Map of the chapter scenes where the scenes are kept serialized, as read from
+ * the chapter file, until they are used.
+ *
+ * A scene is deserialized the first time it is get from the map, so the
+ * scenes are retrieved lazily from World.getScene(), setCurrentScene() and
+ * the SceneActorRef resolution. Getting the values or the entries
+ * deserializes all the scenes.
+ */
+class LazySceneMap extends AbstractMap<String, Scene> {
+	public interface SceneLoadedListener {
+		void sceneLoaded(Scene s);
+	}
+
+	private final HashMap<String, Scene> scenes = new HashMap<String, Scene>();
+
+	/** Scene id -> model of the scenes not deserialized yet */
+	private final HashMap<String, SceneSource> sources = new HashMap<String, SceneSource>();
+
+	private final SceneLoadedListener listener;
+
+	public LazySceneMap(SceneLoadedListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Adds a scene that will be deserialized when used.
+	 */
+	public void putSource(String id, SceneSource source) {
+		scenes.remove(id);
+		sources.put(id, source);
+	}
+
+	public boolean isLoaded(String id) {
+		return scenes.containsKey(id);
+	}
+
+	/**
+	 * @return The scenes already deserialized.
+	 */
+	public Collection<Scene> getLoadedScenes() {
+		return Collections.unmodifiableCollection(scenes.values());
+	}
+
+	/**
+	 * Deserializes all the pending scenes.
+	 */
+	public void loadAll() {
+		while (!sources.isEmpty())
+			load(sources.keySet().iterator().next());
+	}
+
+	private Scene load(String id) {
+		SceneSource source = sources.remove(id);
+
+		long initTime = System.currentTimeMillis();
+
+		Mode mode = SerializationHelper.getInstance().getMode();
+		SerializationHelper.getInstance().setMode(Mode.MODEL);
+
+		Scene s;
+
+		try {
+			Json json = new Json();
+			json.setIgnoreUnknownFields(true);
+
+			s = json.readValue(Scene.class, source.parse());
+		} finally {
+			SerializationHelper.getInstance().setMode(mode);
+		}
+
+		scenes.put(id, s);
+		listener.sceneLoaded(s);
+
+		EngineLogger.debug("SCENE MODEL LOADING TIME (ms): " + id + " " + (System.currentTimeMillis() - initTime));
+
+		return s;
+	}
+
+	@Override
+	public Scene get(Object key) {
+		Scene s = scenes.get(key);
+
+		if (s == null && sources.containsKey(key))
+			s = load((String) key);
+
+		return s;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return scenes.containsKey(key) || sources.containsKey(key);
+	}
+
+	@Override
+	public Scene put(String key, Scene value) {
+		sources.remove(key);
+
+		return scenes.put(key, value);
+	}
+
+	@Override
+	public Scene remove(Object key) {
+		Scene s = get(key);
+
+		scenes.remove(key);
+
+		return s;
+	}
+
+	@Override
+	public int size() {
+		return scenes.size() + sources.size();
+	}
+
+	@Override
+	public void clear() {
+		scenes.clear();
+		sources.clear();
+	}
+
+	/**
+	 * The scene ids. It does not deserialize the scenes.
+	 */
+	@Override
+	public Set<String> keySet() {
+		HashSet<String> keys = new HashSet<String>(scenes.keySet());
+		keys.addAll(sources.keySet());
+
+		return Collections.unmodifiableSet(keys);
+	}
+
+	@Override
+	public Collection<Scene> values() {
+		loadAll();
+
+		return scenes.values();
+	}
+
+	@Override
+	public Set<Entry<String, Scene>> entrySet() {
+		loadAll();
+
+		return scenes.entrySet();
+	}
+}
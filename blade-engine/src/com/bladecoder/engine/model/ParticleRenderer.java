@@ -17,6 +17,8 @@ package com.bladecoder.engine.model;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.ParticleEffect;
+import com.badlogic.gdx.graphics.g2d.ParticleEmitter;
+import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.math.Matrix4;
@@ -25,6 +27,7 @@ import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.assets.EngineAssetManager.AssetClass;
 import com.bladecoder.engine.util.RectangleRenderer;
 import com.bladecoder.engine.util.SerializationHelper;
 import com.bladecoder.engine.util.SerializationHelper.Mode;
@@ -165,7 +168,8 @@ public class ParticleRenderer implements ActorRenderer {
 
 	@Override
 	public void loadAssets() {
-		EngineAssetManager.getInstance().loadAtlas(getAtlasName());
+		// UI class: the particle sprites take the size of the regions
+		EngineAssetManager.getInstance().loadAtlas(getAtlasName(), AssetClass.UI);
 	}
 
 	@Override
@@ -179,6 +183,22 @@ public class ParticleRenderer implements ActorRenderer {
 		atlasTex = EngineAssetManager.getInstance().getTextureAtlas(getAtlasName());
 		
 		effect.load(EngineAssetManager.getInstance().getParticle(getParticleName()), atlasTex);
+
+		// the atlas can be already loaded downscaled by other renderer
+		float scale = EngineAssetManager.getInstance().getAtlasScale(
+				EngineAssetManager.ATLASES_DIR + getAtlasName() + EngineAssetManager.ATLAS_EXT);
+
+		if (scale < 1) {
+			for (ParticleEmitter e : effect.getEmitters()) {
+				Sprite sprite = e.getSprite();
+
+				if (sprite != null) {
+					sprite.setSize(sprite.getWidth() / scale, sprite.getHeight() / scale);
+					e.setSprite(sprite);
+				}
+			}
+		}
+
 		effect.start();
 		// reset tmp to force repositioning
 		tmpPosX = Float.MAX_VALUE;
@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+/**
+ * Listener for changes in the world custom properties and in the actor and
+ * scene states. Listeners are registered in the World.
+ */
+public interface PropertyChangeListener {
+	public static final String STATE_PROPERTY = "state";
+
+	/**
+	 * @param source
+	 *            The World for custom properties, the InteractiveActor or the
+	 *            Scene for states.
+	 * @param property
+	 *            The custom property name or STATE_PROPERTY.
+	 * @param value
+	 *            The new value.
+	 */
+	public void propertyChanged(Object source, String property, String value);
+}
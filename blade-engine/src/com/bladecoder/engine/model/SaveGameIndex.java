@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
+
+/**
+ * Small index with the metadata of the saved games in the user folder. It is
+ * updated every time a game is saved, so the load/save screen can show the
+ * slots without reading the saved games.
+ *
+ * Methods are synchronized because the autosave updates the index from a
+ * background thread.
+ */
+public class SaveGameIndex {
+	public static final String FILENAME = "gamestates.index";
+
+	public static class Entry {
+		/** Saved game filename without the GAMESTATE_EXT */
+		public String slot;
+
+		/** Save time in ms */
+		public long timestamp;
+
+		public String chapter;
+		public String scene;
+
+		/** Time of game in ms */
+		public long playTime;
+	}
+
+	/**
+	 * @return The entries by slot. Empty if the index does not exists.
+	 */
+	@SuppressWarnings("unchecked")
+	public static synchronized HashMap<String, Entry> load() {
+		HashMap<String, Entry> entries = new HashMap<String, Entry>();
+		FileHandle file = EngineAssetManager.getInstance().getUserFile(FILENAME);
+
+		if (!file.exists())
+			return entries;
+
+		try {
+			ArrayList<Entry> l = new Json().fromJson(ArrayList.class, Entry.class, file);
+
+			for (Entry e : l)
+				entries.put(e.slot, e);
+		} catch (Exception e) {
+			EngineLogger.error("Error reading saved games index, ignoring it.", e);
+		}
+
+		return entries;
+	}
+
+	public static synchronized void put(Entry e) {
+		HashMap<String, Entry> entries = load();
+		entries.put(e.slot, e);
+		save(entries);
+	}
+
+	public static synchronized void remove(String slot) {
+		HashMap<String, Entry> entries = load();
+
+		if (entries.remove(slot) != null)
+			save(entries);
+	}
+
+	private static void save(HashMap<String, Entry> entries) {
+		Json json = new Json();
+		json.setOutputType(OutputType.minimal);
+
+		FileHandle file = EngineAssetManager.getInstance().getUserFile(FILENAME);
+		FileHandle tmp = file.sibling(file.name() + World.TMP_EXT);
+
+		try {
+			tmp.writeString(json.toJson(new ArrayList<Entry>(entries.values()), ArrayList.class, Entry.class),
+					false, "UTF-8");
+			FileUtils.replace(tmp, file);
+		} catch (Exception e) {
+			EngineLogger.error("Error writing saved games index.", e);
+		}
+	}
+
+	/**
+	 * @return The slot of a saved game filename or null if the file is not a
+	 *         saved game slot.
+	 */
+	public static String getSlot(String filename) {
+		if (!filename.endsWith(World.GAMESTATE_EXT))
+			return null;
+
+		return filename.substring(0, filename.length() - World.GAMESTATE_EXT.length());
+	}
+}
@@ -16,6 +16,8 @@
 package com.bladecoder.engine.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,9 +36,13 @@ import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.actions.SceneActorRef;
 import com.bladecoder.engine.assets.AssetConsumer;
+import com.bladecoder.engine.assets.AssetManifest;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.assets.EngineAssetManager.AssetClass;
 import com.bladecoder.engine.polygonalpathfinder.NavNodePolygonal;
 import com.bladecoder.engine.polygonalpathfinder.PolygonalNavGraph;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.ActionUtils;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.SerializationHelper;
 import com.bladecoder.engine.util.SerializationHelper.Mode;
@@ -95,6 +101,9 @@ public class Scene implements Serializable, AssetConsumer {
 
 	private VerbManager verbs = new VerbManager();
 
+	/** Assets loaded from the chapter asset manifest */
+	private List<String> prefetched;
+
 	public Scene() {
 	}
 
@@ -111,7 +120,11 @@ public class Scene implements Serializable, AssetConsumer {
 	}
 
 	public void setState(String s) {
+		if (ActionUtils.compareNullStr(state, s))
+			return;
+
 		state = s;
+		World.getInstance().firePropertyChange(this, PropertyChangeListener.STATE_PROPERTY, s);
 	}
 
 	public List<SceneLayer> getLayers() {
@@ -186,9 +199,10 @@ public class Scene implements Serializable, AssetConsumer {
 
 			float x = 0;
 
+			// the packed size doesn't change when the atlas is downscaled
 			for (AtlasRegion tile : background) {
-				batch.draw(tile, x, 0f);
-				x += tile.getRegionWidth();
+				batch.draw(tile, x, 0f, tile.packedWidth, tile.packedHeight);
+				x += tile.packedWidth;
 			}
 
 			batch.end();
@@ -252,12 +266,15 @@ public class Scene implements Serializable, AssetConsumer {
 
 	public BaseActor getActor(String id, boolean searchInventory) {
 
-		if (VAR_PLAYER.equals(id))
-			return actors.get(player);
+		BaseActor a = actors.get(VAR_PLAYER.equals(id) ? player : id);
 
-		BaseActor a = actors.get(id);
+		if (a != null) {
+			// the actions get the actors from here, it may be changed
+			StateBaseline baseline = World.getInstance().getStateBaseline();
 
-		if (a == null && searchInventory) {
+			if (baseline != null)
+				baseline.actorChanged(this, a);
+		} else if (searchInventory) {
 			a = World.getInstance().getInventory().get(id);
 			
 			// Search the uiActors
@@ -276,6 +293,11 @@ public class Scene implements Serializable, AssetConsumer {
 		actors.put(actor.getId(), actor);
 		actor.setScene(this);
 
+		StateBaseline baseline = World.getInstance().getStateBaseline();
+
+		if (baseline != null)
+			baseline.actorChanged(this, actor);
+
 		if (actor instanceof InteractiveActor) {
 			InteractiveActor ia = (InteractiveActor) actor;
 
@@ -467,6 +489,11 @@ public class Scene implements Serializable, AssetConsumer {
 			return;
 		}
 
+		StateBaseline baseline = World.getInstance().getStateBaseline();
+
+		if (baseline != null)
+			baseline.headerChanged(this);
+
 		if (a instanceof InteractiveActor) {
 			InteractiveActor ia = (InteractiveActor) a;
 			SceneLayer layer = getLayer(ia.getLayer());
@@ -510,20 +537,61 @@ public class Scene implements Serializable, AssetConsumer {
 	public void loadAssets() {
 
 		if (backgroundAtlas != null && !backgroundAtlas.isEmpty()) {
-			EngineAssetManager.getInstance().loadAtlas(backgroundAtlas);
+			EngineAssetManager.getInstance().loadAtlas(backgroundAtlas, AssetClass.BACKGROUND);
 		}
 
-		for (BaseActor a : actors.values()) {
+		// the assets are loaded in order, so the ones closer to the camera are
+		// ready first
+		for (BaseActor a : getActorsByLoadPriority()) {
 			if (a instanceof AssetConsumer)
 				((AssetConsumer) a).loadAssets();
 		}
 
+		// the sounds used by the scene actions and dialogs are
+		// loaded in the same batch
+		AssetManifest manifest = World.getInstance().getAssetManifest();
+
+		if (manifest != null && prefetched == null)
+			prefetched = EngineAssetManager.getInstance().prefetch(manifest.getAssets(id));
+
 		// CALC WALK GRAPH
 		if (polygonalNavGraph != null) {
 			polygonalNavGraph.createInitialGraph(actors.values());
 		}
 	}
 
+	/**
+	 * The player first, then the actors by the distance of their layer to the
+	 * main plane (parallax 1) and the actors without layer at the end.
+	 */
+	private List<BaseActor> getActorsByLoadPriority() {
+		ArrayList<BaseActor> l = new ArrayList<BaseActor>(actors.values());
+		final BaseActor p = getPlayer();
+
+		Collections.sort(l, new Comparator<BaseActor>() {
+			@Override
+			public int compare(BaseActor a1, BaseActor a2) {
+				if (a1 == p || a2 == p)
+					return a1 == p ? (a2 == p ? 0 : -1) : 1;
+
+				return Float.compare(getLayerDistance(a1), getLayerDistance(a2));
+			}
+		});
+
+		return l;
+	}
+
+	private float getLayerDistance(BaseActor a) {
+		if (a instanceof InteractiveActor) {
+			SceneLayer layer = getLayer(((InteractiveActor) a).getLayer());
+
+			if (layer != null)
+				return Math.abs(layer.getParallaxMultiplier() - 1f);
+		}
+
+		return Float.MAX_VALUE;
+	}
+
 	@Override
 	public void retrieveAssets() {
 
@@ -534,10 +602,10 @@ public class Scene implements Serializable, AssetConsumer {
 			int width = 0;
 
 			for (int i = 0; i < background.size; i++) {
-				width += background.get(i).getRegionWidth();
+				width += background.get(i).packedWidth;
 			}
 
-			int height = background.get(0).getRegionHeight();
+			int height = background.get(0).packedHeight;
 
 			// Sets the scrolling dimensions. It must be done here because
 			// the background must be loaded to calculate the bbox
@@ -565,6 +633,13 @@ public class Scene implements Serializable, AssetConsumer {
 			EngineAssetManager.getInstance().disposeAtlas(backgroundAtlas);
 		}
 
+		if (prefetched != null) {
+			for (String fileName : prefetched)
+				EngineAssetManager.getInstance().unload(fileName);
+
+			prefetched = null;
+		}
+
 		// orderedActors.clear();
 
 		for (BaseActor a : actors.values()) {
@@ -622,11 +697,17 @@ public class Scene implements Serializable, AssetConsumer {
 
 		} else {
 			SceneActorRef actorRef;
+			StateBaseline baseline = World.getInstance().getStateBaseline();
 
 			json.writeObjectStart("actors");
 			for (BaseActor a : actors.values()) {
-				actorRef = new SceneActorRef(a.getInitScene(), a.getId());
-				json.writeValue(actorRef.toString(), a);
+				if (baseline != null) {
+					// delta saved game: only actors that differ from the model
+					baseline.writeActor(json, this, a);
+				} else {
+					actorRef = new SceneActorRef(a.getInitScene(), a.getId());
+					json.writeValue(actorRef.toString(), a);
+				}
 			}
 			json.writeObjectEnd();
 
@@ -683,6 +764,12 @@ public class Scene implements Serializable, AssetConsumer {
 			JsonValue jsonValueActors = jsonData.get("actors");
 			SceneActorRef actorRef;
 
+			// the read actors are marked when they are got below
+			StateBaseline baseline = World.getInstance().getStateBaseline();
+
+			if (baseline != null)
+				baseline.headerChanged(this);
+
 			// GET ACTORS FROM HIS INIT SCENE AND MOVE IT TO THE LOADING SCENE.
 			for (int i = 0; i < jsonValueActors.size; i++) {
 				JsonValue jsonValueAct = jsonValueActors.get(i);
@@ -720,6 +807,10 @@ public class Scene implements Serializable, AssetConsumer {
 		}
 
 		verbs.read(json, jsonData);
+
+		if (SerializationHelper.getInstance().getMode() == Mode.MODEL)
+			ActionCallbackSerialization.register(this, verbs);
+
 		state = json.readValue("state", String.class, jsonData);
 		player = json.readValue("player", String.class, jsonData);
 	}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.io.ByteArrayInputStream;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.util.BinaryJsonReader;
+
+/**
+ * The serialized model of a scene not deserialized yet: the JSON text of a
+ * .chapter.json file or the binary JSON of a chapter bundle.
+ */
+abstract class SceneSource {
+	public abstract JsonValue parse();
+
+	public static SceneSource fromText(final String json) {
+		return new SceneSource() {
+			@Override
+			public JsonValue parse() {
+				return new JsonReader().parse(json);
+			}
+		};
+	}
+
+	public static SceneSource fromBinary(final byte[] data) {
+		return new SceneSource() {
+			@Override
+			public JsonValue parse() {
+				return new BinaryJsonReader().parse(new ByteArrayInputStream(data));
+			}
+		};
+	}
+}
@@ -15,12 +15,14 @@
  ******************************************************************************/
 package com.bladecoder.engine.model;
 
-import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.utils.LongArray;
 import com.bladecoder.engine.assets.AssetConsumer;
 import com.bladecoder.engine.assets.EngineAssetManager;
 
 public class SoundFX implements AssetConsumer {
-	transient private Sound s;
+	transient private boolean loaded = false;
+	/** The played instances that may be still playing */
+	transient private final LongArray instanceIds = new LongArray();
 	private String id;
 	private boolean loop;
 	private String filename;
@@ -41,42 +43,63 @@ public class SoundFX implements AssetConsumer {
 	}
 	
 	public void play() {
-		if(s==null) {
+		SoundManager sm = World.getInstance().getSoundManager();
+		
+		if(!loaded || !sm.isLoaded(getFilename())) {
 			if(!preload) {
 				loadAssets();
 				EngineAssetManager.getInstance().finishLoading();
 				retrieveAssets();
 				
-				if(s == null)
+				if(!sm.isLoaded(getFilename()))
 					return;
 			} else {
 				return;
 			}
 		}
 		
-		if(loop) s.loop(volume, 1, pan);
-		else s.play(volume, 1, pan);
+		// forget the finished, stolen or pruned instances
+		for (int i = instanceIds.size - 1; i >= 0; i--) {
+			if (!sm.isTracked(getFilename(), instanceIds.get(i)))
+				instanceIds.removeIndex(i);
+		}
+		
+		long id = sm.play(getFilename(), loop, volume, pan);
+		
+		if(id != -1)
+			instanceIds.add(id);
 	}
 
 	public void stop() {
-		if(s==null)
+		if(instanceIds.size == 0)
 			return;
 		
-		s.stop();
+		SoundManager sm = World.getInstance().getSoundManager();
+		
+		for (int i = 0; i < instanceIds.size; i++)
+			sm.stop(getFilename(), instanceIds.get(i));
+		
+		instanceIds.clear();
 	}
 	
 	public void pause() {
-		if(s==null)
+		if(instanceIds.size == 0)
 			return;
 		
-		s.pause();
+		SoundManager sm = World.getInstance().getSoundManager();
+		
+		for (int i = 0; i < instanceIds.size; i++)
+			sm.pause(getFilename(), instanceIds.get(i));
 	}
 	
 	public void resume() {
-		if(s==null)
+		if(instanceIds.size == 0)
 			return;
 		
-		s.resume();
+		SoundManager sm = World.getInstance().getSoundManager();
+		
+		for (int i = 0; i < instanceIds.size; i++)
+			sm.resume(getFilename(), instanceIds.get(i));
 	}
 	
 	public boolean getLoop() {
@@ -130,18 +153,26 @@ public class SoundFX implements AssetConsumer {
 	@Override
 	public void loadAssets() {
 //		EngineLogger.debug("LOADING SOUND: " + id + " - " + filename);
-		EngineAssetManager.getInstance().loadSound(getFilename());
+		if(loaded)
+			return;
+		
+		World.getInstance().getSoundManager().load(getFilename());
+		loaded = true;
 	}
 	
 	@Override
 	public void retrieveAssets() {
-		s = EngineAssetManager.getInstance().getSound(getFilename());
+		World.getInstance().getSoundManager().retrieve(getFilename());
 	}
 	
 	@Override
 	public void dispose() {
 //		EngineLogger.debug("DISPOSING SOUND: " + id + " - " + filename);
 		stop();
-		EngineAssetManager.getInstance().disposeSound(getFilename());
+		
+		if(loaded) {
+			World.getInstance().getSoundManager().release(getFilename());
+			loaded = false;
+		}
 	}
 }
@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import com.badlogic.gdx.audio.Sound;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.Config;
+
+/**
+ * Registry of the sounds shared by all the SoundFX of the game.
+ *
+ * Every sound file is loaded once and reference counted. When the last SoundFX
+ * using a sound is disposed, the sound is kept loaded 'DISPOSE_DELAY' seconds
+ * so the sounds shared between consecutive scenes are not reloaded.
+ *
+ * The playing instances of every sound are limited by the
+ * 'sound_max_instances' config property. When the limit is reached, or when the
+ * backend has no free voices, the oldest instance is stopped.
+ *
+ * The Sound API can not tell when a one shot instance has finished, so the
+ * non looping instances are pruned, oldest first, when there are more tracked
+ * instances than MAX_VOICES: the backends (OpenAL sources, Android SoundPool
+ * streams) do not play more than that at once, so the oldest ones are finished
+ * or have been recycled by the backend.
+ */
+public class SoundManager {
+	public static final float DISPOSE_DELAY = 5f;
+	private static final int DEFAULT_MAX_INSTANCES = 4;
+
+	/** Default simultaneous voices of the libgdx audio backends */
+	public static final int MAX_VOICES = 16;
+
+	private static class Entry {
+		final String filename;
+		Sound sound;
+		int refs;
+
+		/** Seconds until disposing the sound when refs == 0 */
+		float disposeTime;
+
+		Entry(String filename) {
+			this.filename = filename;
+		}
+	}
+
+	private static class Instance {
+		final Entry entry;
+		final long id;
+		final boolean loop;
+
+		Instance(Entry entry, long id, boolean loop) {
+			this.entry = entry;
+			this.id = id;
+			this.loop = loop;
+		}
+	}
+
+	private final HashMap<String, Entry> entries = new HashMap<String, Entry>();
+
+	/** The played instances, oldest first */
+	private final ArrayList<Instance> instances = new ArrayList<Instance>();
+
+	private final int maxInstances;
+
+	public SoundManager() {
+		maxInstances = Config.getProperty(Config.SOUND_MAX_INSTANCES_PROP, DEFAULT_MAX_INSTANCES);
+	}
+
+	/**
+	 * Adds a reference to the sound. The sound is queued in the asset manager
+	 * if it is not loaded.
+	 */
+	public void load(String filename) {
+		Entry e = entries.get(filename);
+
+		if (e == null) {
+			e = new Entry(filename);
+			entries.put(filename, e);
+
+			EngineAssetManager.getInstance().loadSound(filename);
+		}
+
+		e.refs++;
+		e.disposeTime = 0;
+	}
+
+	/**
+	 * @return The sound or null if it is not loaded.
+	 */
+	public Sound retrieve(String filename) {
+		Entry e = entries.get(filename);
+
+		if (e == null)
+			return null;
+
+		if (e.sound == null && EngineAssetManager.getInstance().isSoundLoaded(filename))
+			e.sound = EngineAssetManager.getInstance().getSound(filename);
+
+		return e.sound;
+	}
+
+	public boolean isLoaded(String filename) {
+		return retrieve(filename) != null;
+	}
+
+	/**
+	 * Removes a reference to the sound. The sound is disposed after
+	 * 'DISPOSE_DELAY' seconds if it is not referenced again.
+	 */
+	public void release(String filename) {
+		Entry e = entries.get(filename);
+
+		if (e == null || e.refs == 0)
+			return;
+
+		e.refs--;
+
+		if (e.refs == 0)
+			e.disposeTime = DISPOSE_DELAY;
+	}
+
+	/**
+	 * @return The id of the played instance or -1 if the sound is not loaded
+	 *         or it could not be played.
+	 */
+	public long play(String filename, boolean loop, float volume, float pan) {
+		Entry e = entries.get(filename);
+
+		if (e == null || retrieve(filename) == null)
+			return -1;
+
+		if (maxInstances > 0 && countInstances(e) >= maxInstances)
+			steal(e);
+
+		long id = play(e, loop, volume, pan);
+
+		// maybe no free voices in the backend, steal the oldest instance and
+		// retry once. -1 can also be returned for other reasons.
+		if (id == -1 && !instances.isEmpty()) {
+			steal(null);
+			id = play(e, loop, volume, pan);
+		}
+
+		if (id != -1) {
+			instances.add(new Instance(e, id, loop));
+			prune();
+		}
+
+		return id;
+	}
+
+	/**
+	 * @return true if the instance has not been stopped, stolen or pruned.
+	 */
+	public boolean isTracked(String filename, long id) {
+		Entry e = entries.get(filename);
+
+		if (e == null)
+			return false;
+
+		for (Instance inst : instances) {
+			if (inst.entry == e && inst.id == id)
+				return true;
+		}
+
+		return false;
+	}
+
+	private long play(Entry e, boolean loop, float volume, float pan) {
+		return loop ? e.sound.loop(volume, 1, pan) : e.sound.play(volume, 1, pan);
+	}
+
+	public void stop(String filename, long id) {
+		Entry e = entries.get(filename);
+
+		if (e == null || e.sound == null)
+			return;
+
+		e.sound.stop(id);
+		removeInstance(e, id);
+	}
+
+	public void pause(String filename, long id) {
+		Entry e = entries.get(filename);
+
+		if (e != null && e.sound != null)
+			e.sound.pause(id);
+	}
+
+	public void resume(String filename, long id) {
+		Entry e = entries.get(filename);
+
+		if (e != null && e.sound != null)
+			e.sound.resume(id);
+	}
+
+	/**
+	 * Disposes the unreferenced sounds when its delay expires.
+	 */
+	public void update(float delta) {
+		Iterator<Entry> it = entries.values().iterator();
+
+		while (it.hasNext()) {
+			Entry e = it.next();
+
+			if (e.refs > 0)
+				continue;
+
+			e.disposeTime -= delta;
+
+			if (e.disposeTime <= 0) {
+				unload(e);
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return The number of sounds in the registry, including the ones waiting
+	 *         to be disposed.
+	 */
+	public int getLoadedCount() {
+		return entries.size();
+	}
+
+	/**
+	 * @return The estimated bytes of the sounds in the registry.
+	 */
+	public long getLoadedBytes() {
+		long total = 0;
+
+		for (Entry e : entries.values())
+			total += EngineAssetManager.getInstance().getSoundBytes(e.filename);
+
+		return total;
+	}
+
+	/**
+	 * Stops and unloads all the sounds.
+	 */
+	public void dispose() {
+		for (Entry e : entries.values())
+			unload(e);
+
+		entries.clear();
+		instances.clear();
+	}
+
+	private void unload(Entry e) {
+		for (int i = instances.size() - 1; i >= 0; i--) {
+			if (instances.get(i).entry == e)
+				instances.remove(i);
+		}
+
+		if (e.sound != null)
+			e.sound.stop();
+
+		EngineAssetManager.getInstance().disposeSound(e.filename);
+		e.sound = null;
+	}
+
+	private int countInstances(Entry e) {
+		int count = 0;
+
+		for (Instance i : instances) {
+			if (i.entry == e)
+				count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Stops the oldest instance of the sound or, if null, the oldest non
+	 * looping instance of any sound.
+	 */
+	private void steal(Entry e) {
+		int idx = -1;
+
+		for (int i = 0; i < instances.size(); i++) {
+			Instance inst = instances.get(i);
+
+			if (e != null ? inst.entry == e : !inst.loop) {
+				idx = i;
+				break;
+			}
+		}
+
+		if (idx == -1)
+			idx = 0;
+
+		Instance inst = instances.remove(idx);
+		inst.entry.sound.stop(inst.id);
+	}
+
+	/**
+	 * Forgets the oldest non looping instances beyond MAX_VOICES. They are
+	 * finished or recycled by the backend.
+	 */
+	private void prune() {
+		for (int i = 0; i < instances.size() && instances.size() > MAX_VOICES;) {
+			if (!instances.get(i).loop)
+				instances.remove(i);
+			else
+				i++;
+		}
+	}
+
+	private void removeInstance(Entry e, long id) {
+		for (int i = 0; i < instances.size(); i++) {
+			Instance inst = instances.get(i);
+
+			if (inst.entry == e && inst.id == id) {
+				instances.remove(i);
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+import com.badlogic.gdx.utils.Json;
+import com.bladecoder.engine.actions.SceneActorRef;
+
+/**
+ * Tracks the scenes and actors that may differ from the chapter model.
+ *
+ * It is used to write delta saved games: only the scenes and actors marked as
+ * changed are written. Loading a delta saved game reloads the chapter model
+ * and patches it, so the omitted scenes and actors stay as in the model.
+ *
+ * Nothing is serialized to track the changes. The marks are conservative, a
+ * marked actor may be equal to the model but an unmarked one is never
+ * changed:
+ *
+ * - The current scene is marked completely: its actors are updated every
+ * frame.
+ *
+ * - The actors of other scenes are marked when they are looked up with
+ * Scene.getActor() (that is how the actions reach them) or added to a scene.
+ *
+ * - The scene header (camera, verbs, state...) is marked when the scene is
+ * looked up with World.getScene() or an actor is removed from it.
+ *
+ * - The scenes and actors read from a saved game are marked.
+ *
+ * The marks are never cleared while the chapter is loaded because an actor
+ * can not be compared with the model without serializing it.
+ */
+public class StateBaseline {
+
+	private static class SceneChanges {
+		/** The header and all the actors are changed */
+		boolean all;
+		boolean header;
+		final HashSet<String> actors = new HashSet<String>();
+	}
+
+	/** Scene id -> changes. Only the scenes read from the model are tracked. */
+	private final HashMap<String, SceneChanges> scenes = new HashMap<String, SceneChanges>();
+
+	/**
+	 * Starts tracking the scene. Must be called after reading the scene from
+	 * the chapter model and before running any verb.
+	 */
+	public void capture(Scene s) {
+		scenes.put(s.getId(), new SceneChanges());
+	}
+
+	/**
+	 * Marks the scene header and all its actors as changed.
+	 */
+	public void sceneChanged(Scene s) {
+		SceneChanges c = scenes.get(s.getId());
+
+		if (c != null)
+			c.all = true;
+	}
+
+	/**
+	 * Marks the scene header as changed.
+	 */
+	public void headerChanged(Scene s) {
+		SceneChanges c = scenes.get(s.getId());
+
+		if (c != null)
+			c.header = true;
+	}
+
+	/**
+	 * Marks the actor as changed in the scene.
+	 */
+	public void actorChanged(Scene s, BaseActor a) {
+		SceneChanges c = scenes.get(s.getId());
+
+		if (c != null && !c.all)
+			c.actors.add(a.getId());
+	}
+
+	/**
+	 * @return true if the scene must be written in the saved game.
+	 */
+	public boolean isChanged(Scene s) {
+		SceneChanges c = scenes.get(s.getId());
+
+		return c != null && (c.all || c.header || !c.actors.isEmpty());
+	}
+
+	/**
+	 * Writes the actor only if it is marked as changed. Called from
+	 * Scene.write in STATE mode.
+	 */
+	public void writeActor(Json json, Scene s, BaseActor a) {
+		SceneChanges c = scenes.get(s.getId());
+
+		if (c == null || c.all || c.actors.contains(a.getId()))
+			json.writeValue(new SceneActorRef(a.getInitScene(), a.getId()).toString(), a);
+	}
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonValue.ValueType;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.SerializationHelper;
+import com.bladecoder.engine.util.SerializationHelper.Mode;
+
+/**
+ * Canonical dump of the world STATE to compare two runs of the game, p.e.
+ * to verify that a refactor does not change the behaviour.
+ *
+ * The dump is the saved game JSON with the object members sorted by name (the
+ * HashMaps are serialized in hash order), the decimals rounded and without the
+ * time fields, so two runs that reach the same state produce the same text.
+ * All the scenes and actors are dumped, even with delta saved games enabled.
+ *
+ * The state can be dumped from the debug screen, from the 'DumpState' action
+ * at any point of the game scripts, by calling write() or, for unattended runs,
+ * at the end of a played recording if the 'state_dump' config property is set
+ * to the dump filename.
+ *
+ * The dumps can be compared with diff() or from the command line:
+ * 
+ * <pre>
+ * java com.bladecoder.engine.model.StateDump dump1.json dump2.json
+ * </pre>
+ */
+public class StateDump {
+	public static final int DECIMALS = 3;
+	public static final String FILENAME = "statedump";
+
+	/** Members that change between runs that reach the same state */
+	private static final HashSet<String> EXCLUDED = new HashSet<String>(Arrays.asList("timeOfGame"));
+
+	private static final Comparator<JsonValue> BY_NAME = new Comparator<JsonValue>() {
+		@Override
+		public int compare(JsonValue o1, JsonValue o2) {
+			return o1.name.compareTo(o2.name);
+		}
+	};
+
+	/**
+	 * @return The canonical dump of the world state.
+	 */
+	public static String dump(World w) {
+		Json json = new Json();
+		json.setOutputType(OutputType.json);
+
+		Mode mode = SerializationHelper.getInstance().getMode();
+		SerializationHelper.getInstance().setMode(Mode.STATE);
+
+		String state;
+
+		try {
+			state = w.getFullState(json);
+		} finally {
+			SerializationHelper.getInstance().setMode(mode);
+		}
+
+		return canonicalize(new JsonReader().parse(state)).prettyPrint(OutputType.json, 0);
+	}
+
+	public static void write(World w, FileHandle file) {
+		file.writeString(dump(w), false, "UTF-8");
+	}
+
+	/**
+	 * Dumps the world state to the first free 'statedumpN.json' file of the
+	 * user folder.
+	 * 
+	 * @return The written file.
+	 */
+	public static FileHandle write(World w) {
+		int i = 0;
+		FileHandle file;
+
+		do {
+			file = EngineAssetManager.getInstance().getUserFile(FILENAME + i++ + ".json");
+		} while (file.exists());
+
+		write(w, file);
+
+		return file;
+	}
+
+	/**
+	 * Sorts the object members, rounds the decimals and removes the excluded
+	 * members. The value is modified.
+	 */
+	public static JsonValue canonicalize(JsonValue v) {
+		if (v.isObject()) {
+			ArrayList<JsonValue> children = new ArrayList<JsonValue>();
+
+			for (JsonValue c = v.child; c != null; c = c.next) {
+				if (!EXCLUDED.contains(c.name))
+					children.add(c);
+			}
+
+			Collections.sort(children, BY_NAME);
+			setChildren(v, children);
+		}
+
+		for (JsonValue c = v.child; c != null; c = c.next) {
+			if (c.type() == ValueType.doubleValue)
+				c.set(round(c.asDouble()), null);
+			else
+				canonicalize(c);
+		}
+
+		return v;
+	}
+
+	private static double round(double d) {
+		if (Double.isNaN(d) || Double.isInfinite(d))
+			return d;
+
+		return BigDecimal.valueOf(d).setScale(DECIMALS, RoundingMode.HALF_UP).doubleValue();
+	}
+
+	private static void setChildren(JsonValue parent, List<JsonValue> children) {
+		JsonValue last = null;
+
+		parent.child = null;
+		parent.size = children.size();
+
+		for (JsonValue c : children) {
+			c.prev = last;
+			c.next = null;
+
+			if (last == null)
+				parent.child = c;
+			else
+				last.next = c;
+
+			last = c;
+		}
+	}
+
+	/**
+	 * Compares two canonical dumps.
+	 * 
+	 * @return The paths of the different values.
+	 */
+	public static List<String> diff(JsonValue a, JsonValue b) {
+		ArrayList<String> result = new ArrayList<String>();
+		diff("", a, b, result);
+
+		return result;
+	}
+
+	private static void diff(String path, JsonValue a, JsonValue b, List<String> result) {
+		if (a == null || b == null) {
+			result.add(path + ": " + toString(a) + " != " + toString(b));
+		} else if (a.isObject() && b.isObject()) {
+			HashSet<String> names = new HashSet<String>();
+
+			for (JsonValue c = a.child; c != null; c = c.next)
+				names.add(c.name);
+
+			for (JsonValue c = b.child; c != null; c = c.next)
+				names.add(c.name);
+
+			ArrayList<String> sorted = new ArrayList<String>(names);
+			Collections.sort(sorted);
+
+			for (String name : sorted)
+				diff(path + "/" + name, a.get(name), b.get(name), result);
+		} else if (a.isArray() && b.isArray()) {
+			int size = Math.max(a.size, b.size);
+
+			for (int i = 0; i < size; i++)
+				diff(path + "[" + i + "]", a.get(i), b.get(i), result);
+		} else if (a.type() != b.type() || (a.isValue() && !String.valueOf(a.asString()).equals(String.valueOf(b.asString())))) {
+			result.add(path + ": " + toString(a) + " != " + toString(b));
+		}
+	}
+
+	private static String toString(JsonValue v) {
+		if (v == null)
+			return "<missing>";
+
+		return v.isValue() ? v.asString() : v.toJson(OutputType.minimal);
+	}
+
+	/**
+	 * Command line diff of two dumps. Exits with 1 if they differ.
+	 */
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			System.err.println("Usage: StateDump <dump1.json> <dump2.json>");
+			System.exit(2);
+		}
+
+		JsonReader reader = new JsonReader();
+		List<String> result = diff(canonicalize(reader.parse(new FileHandle(new File(args[0])))),
+				canonicalize(reader.parse(new FileHandle(new File(args[1])))));
+
+		for (String d : result)
+			System.out.println(d);
+
+		System.exit(result.isEmpty() ? 0 : 1);
+	}
+}
@@ -41,6 +41,9 @@ public class Text implements Serializable {
 	public String actorId;
 	public String voiceId;
 
+	/** Time in ms when the text was added to the TextManager. Not serialized. */
+	public transient long addTime;
+
 	public Text() {
 	}
 
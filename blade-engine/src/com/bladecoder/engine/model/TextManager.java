@@ -58,6 +58,7 @@ public class TextManager implements Serializable {
 
 	public void addText(String str, float x, float y, boolean quee, Text.Type type, Color color, String font,
 			String actorId, String voiceId, ActionCallback cb) {
+		long addTime = System.currentTimeMillis();
 
 		if (str.charAt(0) == I18N.PREFIX)
 			str = I18N.getString(str.substring(1));
@@ -95,6 +96,8 @@ public class TextManager implements Serializable {
 
 			sub = new Text(finalStr, x, y, duration, type, color, font, actorId, lineVoiceId, i == text.length - 1?cb:null);
 			
+			sub.addTime = addTime;
+
 			// resets voice id for the next line
 			lineVoiceId = null;
 
@@ -109,6 +112,7 @@ public class TextManager implements Serializable {
 			}
 		}
 
+		prefetchVoices();
 	}
 
 	public VoiceManager getVoiceManager() {
@@ -124,12 +128,29 @@ public class TextManager implements Serializable {
 		currentText = t;
 
 		if (t != null)
-			voiceManager.play(t.voiceId);
+			voiceManager.play(t.voiceId, t.addTime);
 		else
 			voiceManager.stop();
+
+		prefetchVoices();
+	}
+
+	/**
+	 * Prefetches the voices of the next texts in the fifo.
+	 */
+	private void prefetchVoices() {
+		voiceManager.updatePrefetch();
+	}
+
+	/**
+	 * @return The texts waiting to be shown after the current one.
+	 */
+	Queue<Text> getPendingTexts() {
+		return fifo;
 	}
 
 	public void update(float delta) {
+		voiceManager.update();
 
 		if (currentText == null) {
 			return;
@@ -167,6 +188,7 @@ public class TextManager implements Serializable {
 		inScreenTime = 0;
 		fifo.clear();
 		currentText = null;
+		voiceManager.releasePrefetched();
 	}
 
 	@Override
@@ -20,13 +20,14 @@ import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.g2d.freetype.FreetypeFontLoader.FreeTypeFontLoaderParameter;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Polygon;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.assets.FontManager;
 import com.bladecoder.engine.i18n.I18N;
 import com.bladecoder.engine.util.RectangleRenderer;
 import com.bladecoder.engine.util.SerializationHelper;
@@ -278,34 +279,34 @@ public class TextRenderer implements ActorRenderer {
 
 	@Override
 	public void loadAssets() {
-		FreeTypeFontLoaderParameter params = new FreeTypeFontLoaderParameter();
-
-		params.fontFileName = EngineAssetManager.FONT_DIR + fontName + EngineAssetManager.FONT_EXT;
-		params.fontParameters.size = fontSize;
-		params.fontParameters.borderWidth = borderWidth;
-		params.fontParameters.borderColor = borderColor;
-		params.fontParameters.borderStraight = borderStraight;
-		params.fontParameters.shadowOffsetX = shadowOffsetX;
-		params.fontParameters.shadowOffsetY = shadowOffsetY;
-		params.fontParameters.shadowColor = shadowColor;
-		params.fontParameters.characters = "";
-		params.fontParameters.incremental = true;
-		params.fontParameters.magFilter = TextureFilter.Linear;
-		params.fontParameters.minFilter = TextureFilter.Linear;
-
-		EngineAssetManager.getInstance().load(fontName + getFontSize() + ".ttf", BitmapFont.class, params);
+		// the font is generated in retrieveAssets by the FontManager, the
+		// glyphs are rasterized when they are used. Only the FreeType face is
+		// opened then, its memory is reported by the FontManager and not
+		// accounted in the asset manager budget.
 	}
 
 	@Override
 	public void retrieveAssets() {
 
-		if (!EngineAssetManager.getInstance().isLoaded(fontName + getFontSize() + ".ttf")) {
-			loadAssets();
-			EngineAssetManager.getInstance().finishLoading();
+		if (font == null) {
+			FreeTypeFontParameter params = new FreeTypeFontParameter();
+
+			params.size = fontSize;
+			params.borderWidth = borderWidth;
+			params.borderColor = borderColor;
+			params.borderStraight = borderStraight;
+			params.shadowOffsetX = shadowOffsetX;
+			params.shadowOffsetY = shadowOffsetY;
+			params.shadowColor = shadowColor;
+			params.characters = "";
+			params.incremental = true;
+			params.magFilter = TextureFilter.Linear;
+			params.minFilter = TextureFilter.Linear;
+
+			font = FontManager.getInstance().get(EngineAssetManager.getInstance()
+					.getAsset(EngineAssetManager.FONT_DIR + fontName + EngineAssetManager.FONT_EXT), params);
 		}
 
-		font = EngineAssetManager.getInstance().get(fontName + getFontSize() + ".ttf", BitmapFont.class);
-
 		String tt = text;
 		
 		if (tt.charAt(0) == I18N.PREFIX)
@@ -321,8 +322,8 @@ public class TextRenderer implements ActorRenderer {
 
 	@Override
 	public void dispose() {
-		if (EngineAssetManager.getInstance().isLoaded(fontName + getFontSize() + ".ttf"))
-			EngineAssetManager.getInstance().unload(fontName + getFontSize() + ".ttf");
+		if (font != null)
+			FontManager.getInstance().release(font);
 		
 		font = null;
 	}
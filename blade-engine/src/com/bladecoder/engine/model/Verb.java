@@ -24,6 +24,7 @@ import com.badlogic.gdx.utils.SerializationException;
 import com.bladecoder.engine.actions.Action;
 import com.bladecoder.engine.util.ActionUtils;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.ScriptProfiler;
 import com.bladecoder.engine.util.SerializationHelper;
 import com.bladecoder.engine.util.SerializationHelper.Mode;
 
@@ -111,6 +112,8 @@ public class Verb implements VerbRunner, Serializable {
 		if (EngineLogger.debugMode())
 			EngineLogger.debug(">>> Running verb: " + id);
 
+		ScriptProfiler.verbRun(this);
+
 		ip = 0;
 		nextStep();
 	}
@@ -118,6 +121,8 @@ public class Verb implements VerbRunner, Serializable {
 	public void nextStep() {
 
 		boolean stop = false;
+		final boolean profile = ScriptProfiler.isEnabled();
+		final long stepTime = profile ? System.nanoTime() : 0;
 
 		while (!isFinished() && !stop) {
 			Action a = actions.get(ip);
@@ -125,6 +130,8 @@ public class Verb implements VerbRunner, Serializable {
 			if (EngineLogger.debugMode())
 				EngineLogger.debug(ip + ". " + a.getClass().getSimpleName());
 
+			final long actionTime = profile ? System.nanoTime() : 0;
+
 			try {
 				if (a.run(this))
 					stop = true;
@@ -134,8 +141,14 @@ public class Verb implements VerbRunner, Serializable {
 				EngineLogger.error("EXCEPTION EXECUTING ACTION: " + a.getClass().getSimpleName() + " - " + e.getMessage(), e);
 				ip++;
 			}
+
+			if (profile)
+				ScriptProfiler.actionRun(a, System.nanoTime() - actionTime);
 		}
 
+		if (profile)
+			ScriptProfiler.verbStep(this, System.nanoTime() - stepTime);
+
 		if (EngineLogger.debugMode() && isFinished())
 			EngineLogger.debug(">>> Verb FINISHED: " + id);
 	}
@@ -1,13 +1,25 @@
 package com.bladecoder.engine.model;
 
+import java.util.ArrayList;
+
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Music.OnCompletionListener;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonValue;
+import com.bladecoder.engine.actions.AbstractControlAction;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.CancelVerbAction;
+import com.bladecoder.engine.actions.EndGameAction;
+import com.bladecoder.engine.actions.GotoAction;
+import com.bladecoder.engine.actions.InkRunAction;
+import com.bladecoder.engine.actions.RunVerbAction;
+import com.bladecoder.engine.actions.SayAction;
+import com.bladecoder.engine.actions.TextAction;
 import com.bladecoder.engine.assets.AssetConsumer;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
 
 /**
@@ -16,6 +28,12 @@ import com.bladecoder.engine.util.EngineLogger;
  * Plays a voice file, if another voice is playing, stops it before playing the
  * new voice.
  * 
+ * The voices of the next 'voice_prefetch' lines (the TextManager fifo and the
+ * next Say/Text actions of the running verb or Ink story) are loaded in the
+ * asset manager background thread, so the voice starts without waiting for
+ * the file. A prefetched voice is released when it is played, when a later
+ * voice is played before it or when it is not upcoming anymore.
+ * 
  * @author rgarcia
  */
 public class VoiceManager implements Serializable, AssetConsumer {
@@ -32,6 +50,15 @@ public class VoiceManager implements Serializable, AssetConsumer {
 	transient private boolean isPaused = false;
 	transient private TextManager textManager = null;
 
+	transient private final int maxPrefetch = Config.getProperty(Config.VOICE_PREFETCH_PROP, 2);
+
+	// The prefetched voices in play order. They are owned by the VoiceManager
+	// until they are played.
+	transient private final ArrayList<String> prefetched = new ArrayList<String>();
+
+	/** The runner of the last prefetch, its next actions are prefetched */
+	transient private VerbRunner runner;
+
 	public VoiceManager(TextManager textManager) {
 		this.textManager = textManager;
 	}
@@ -59,15 +86,185 @@ public class VoiceManager implements Serializable, AssetConsumer {
 	}
 
 	public void play(String fileName) {
+		play(fileName, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param requestTime
+	 *            Time in ms when the voice was requested. The latency is
+	 *            measured from it.
+	 */
+	public void play(String fileName, long requestTime) {
 		stop();
 		
 		this.fileName = fileName;
 		
 		if (fileName != null) {
-			retrieveAssets();
+			boolean queued = takePrefetched(fileName);
 			
-			if(voice != null)
+			retrieveVoice(queued);
+			
+			if(voice != null) {
 				voice.play();
+				
+				EngineLogger.debug("VOICE LATENCY (ms): " + (System.currentTimeMillis() - requestTime) + " " + fileName
+						+ (queued ? " (prefetched)" : ""));
+			}
+		}
+	}
+	
+	/**
+	 * Prefetches the voices of the next Say/Text actions of the runner. Call
+	 * it when the runner shows a text.
+	 */
+	public void prefetch(VerbRunner runner) {
+		this.runner = runner;
+		updatePrefetch();
+	}
+
+	/**
+	 * Rebuilds the prefetch list with the next 'voice_prefetch' voices: the
+	 * voices of the TextManager fifo followed by the voices of the next
+	 * Say/Text actions of the last runner. The scan of the runner stops at the
+	 * first control flow action because the next actions to run are not known
+	 * beyond it.
+	 * 
+	 * The prefetched voices that are not upcoming anymore (p.e. the verb was
+	 * cancelled) are released.
+	 */
+	public void updatePrefetch() {
+		ArrayList<String> next = new ArrayList<String>(maxPrefetch);
+
+		for (Text t : textManager.getPendingTexts()) {
+			if (!addUpcoming(next, t.voiceId))
+				break;
+		}
+
+		if (runner != null && runner.getActions() != null && next.size() < maxPrefetch) {
+			ArrayList<Action> actions = runner.getActions();
+
+			for (int i = runner.getIP() + 1; i < actions.size(); i++) {
+				Action a = actions.get(i);
+				String v = null;
+
+				if (isControlFlow(a))
+					break;
+
+				if (a instanceof SayAction)
+					v = ((SayAction) a).getVoiceId();
+				else if (a instanceof TextAction)
+					v = ((TextAction) a).getVoiceId();
+
+				if (!addUpcoming(next, v))
+					break;
+			}
+		}
+
+		for (String f : prefetched) {
+			if (!next.contains(f))
+				unloadVoice(f);
+		}
+
+		prefetched.clear();
+		prefetched.addAll(next);
+	}
+
+	/**
+	 * Adds the voice to the upcoming list, loading it in background if it was
+	 * not prefetched.
+	 * 
+	 * @return false if the list is full.
+	 */
+	private boolean addUpcoming(ArrayList<String> next, String fileName) {
+		if (next.size() >= maxPrefetch)
+			return false;
+
+		if (fileName == null || fileName.equals(this.fileName) || next.contains(fileName))
+			return true;
+
+		if (!prefetched.contains(fileName)) {
+			String name = EngineAssetManager.VOICE_DIR + fileName;
+
+			if (!EngineAssetManager.getInstance().assetExists(name)) {
+				EngineLogger.error("Voice file not found: " + fileName);
+				return true;
+			}
+
+			EngineLogger.debug("PREFETCHING VOICE: " + fileName);
+			EngineAssetManager.getInstance().load(name, Music.class);
+		}
+
+		next.add(fileName);
+
+		return true;
+	}
+
+	private static boolean isControlFlow(Action a) {
+		return a instanceof AbstractControlAction || a instanceof GotoAction || a instanceof CancelVerbAction
+				|| a instanceof EndGameAction || a instanceof RunVerbAction || a instanceof InkRunAction;
+	}
+
+	/**
+	 * Advances the background loading of the prefetched voices. The asset
+	 * manager is only updated by the World while loading a scene.
+	 * 'updateFrame()' is used so the textures queued at the same time keep
+	 * their upload throttling.
+	 */
+	public void update() {
+		if (prefetched.isEmpty() || World.getInstance().getAssetState() != World.AssetState.LOADED)
+			return;
+
+		// the runner ended or was cancelled, its voices are not upcoming
+		if (runner != null && (runner.getActions() == null || runner.getIP() >= runner.getActions().size())) {
+			runner = null;
+			updatePrefetch();
+		}
+
+		try {
+			EngineAssetManager.getInstance().updateFrame();
+		} catch (GdxRuntimeException e) {
+			EngineLogger.error("Error prefetching voices: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the voice from the prefetch list. The voices prefetched before it
+	 * were skipped and are released.
+	 * 
+	 * @return true if the voice was prefetched and its load is owned now by
+	 *         the playing voice.
+	 */
+	private boolean takePrefetched(String fileName) {
+		int idx = prefetched.indexOf(fileName);
+
+		if (idx == -1)
+			return false;
+
+		for (int i = 0; i < idx; i++)
+			unloadVoice(prefetched.get(i));
+
+		prefetched.subList(0, idx + 1).clear();
+
+		return true;
+	}
+
+	/**
+	 * Releases the prefetched voices that have not been played.
+	 */
+	public void releasePrefetched() {
+		for (String f : prefetched)
+			unloadVoice(f);
+
+		prefetched.clear();
+		runner = null;
+	}
+
+	private void unloadVoice(String fileName) {
+		// also removes the voice from the loading queue if it is not loaded yet
+		try {
+			EngineAssetManager.getInstance().unload(EngineAssetManager.VOICE_DIR + fileName);
+		} catch (GdxRuntimeException e) {
+			EngineLogger.debug("Prefetched voice not loaded: " + fileName);
 		}
 	}
 	
@@ -108,13 +305,28 @@ public class VoiceManager implements Serializable, AssetConsumer {
 
 	@Override
 	public void retrieveAssets() {
+		retrieveVoice(false);
+	}
+	
+	/**
+	 * @param queued true if the voice is already queued in the asset manager
+	 *            by the prefetch.
+	 */
+	private void retrieveVoice(boolean queued) {
 		if (voice == null && fileName != null) {
 			
 			if(!EngineAssetManager.getInstance().isLoaded(EngineAssetManager.VOICE_DIR + fileName)) {
-				loadAssets();
-				
 				try {
+					if(!queued)
+						loadAssets();
+					
 					EngineAssetManager.getInstance().finishLoading();
+					
+					// the prefetch failed
+					if(!EngineAssetManager.getInstance().isLoaded(EngineAssetManager.VOICE_DIR + fileName)) {
+						loadAssets();
+						EngineAssetManager.getInstance().finishLoading();
+					}
 				} catch (GdxRuntimeException e) {
 					EngineLogger.error(e.getMessage());
 					voice = null;
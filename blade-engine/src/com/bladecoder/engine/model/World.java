@@ -15,7 +15,12 @@
  ******************************************************************************/
 package com.bladecoder.engine.model;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.ByteBuffer;
@@ -39,35 +44,46 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.Json.Serializable;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.JsonWriter.OutputType;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.SerializationException;
+import com.badlogic.gdx.utils.SnapshotArray;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.anim.Timers;
 import com.bladecoder.engine.assets.AssetConsumer;
+import com.bladecoder.engine.assets.AssetManifest;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.i18n.I18N;
 import com.bladecoder.engine.ink.InkManager;
+import com.bladecoder.engine.util.ActionCallbackSerialization;
+import com.bladecoder.engine.util.BinaryJsonReader;
+import com.bladecoder.engine.util.BinaryJsonWriter;
+import com.bladecoder.engine.util.ChapterBundle;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.FileUtils;
+import com.bladecoder.engine.util.ScriptProfiler;
 import com.bladecoder.engine.util.SerializationHelper;
 import com.bladecoder.engine.util.SerializationHelper.Mode;
+import com.bladecoder.engine.util.StreamingJsonReader;
 import com.bladecoder.ink.runtime.Choice;
 
 public class World implements Serializable, AssetConsumer {
 
 	public static final String GAMESTATE_EXT = ".gamestate.v12";
+	public static final String TMP_EXT = ".tmp";
 	private static final String GAMESTATE_FILENAME = "default" + GAMESTATE_EXT;
 
 	private static final String DEFAULT_INVENTORY = "DEFAULT";
 
-	private static final int SCREENSHOT_DEFAULT_WIDTH = 300;
+	static final int SCREENSHOT_DEFAULT_WIDTH = 300;
 
 	public static enum AssetState {
 		LOADED, LOADING, LOADING_AND_INIT_SCENE, LOAD_ASSETS, LOAD_ASSETS_AND_INIT_SCENE
@@ -86,7 +102,7 @@ public class World implements Serializable, AssetConsumer {
 	private int height;
 
 	private String initScene;
-	private Map<String, Scene> scenes;
+	private LazySceneMap scenes;
 	private final VerbManager verbs = new VerbManager();
 
 	private Scene currentScene;
@@ -121,15 +137,28 @@ public class World implements Serializable, AssetConsumer {
 	// ------------ LAZY CREATED OBJECTS ------------
 	private InkManager inkManager;
 	private ObjectWrapper wrapper;
+	private AutoSave autoSave;
+	private SoundManager soundManager;
+
+	// The assets of the scenes of the current chapter generated when packaging
+	private AssetManifest assetManifest;
 
 	// ------------ TRANSIENT OBJECTS ------------
 	private AssetState assetState;
+	private final SnapshotArray<PropertyChangeListener> propertyListeners = new SnapshotArray<PropertyChangeListener>(
+			PropertyChangeListener.class);
 	private boolean disposed;
 	transient private SpriteBatch spriteBatch;
+
+	// State of the chapter model to write delta saved games
+	transient private StateBaseline stateBaseline;
 	
 	// for debug purposes, keep track of loading time
 	private long initLoadingTime;
 
+	// for debug purposes, max. used heap while loading the chapter
+	private long peakHeap;
+
 	// We not dispose the last loaded scene.
 	// Instead we cache it to improve performance when returning
 	transient private Scene cachedScene;
@@ -150,7 +179,12 @@ public class World implements Serializable, AssetConsumer {
 	}
 
 	private void init() {
-		scenes = new HashMap<String, Scene>();
+		scenes = new LazySceneMap(new LazySceneMap.SceneLoadedListener() {
+			@Override
+			public void sceneLoaded(Scene s) {
+				World.this.sceneLoaded(s);
+			}
+		});
 		inventories = new HashMap<String, Inventory>();
 		inventories.put(DEFAULT_INVENTORY, new Inventory());
 		currentInventory = DEFAULT_INVENTORY;
@@ -164,6 +198,8 @@ public class World implements Serializable, AssetConsumer {
 		cachedScene = null;
 
 		customProperties = new HashMap<String, String>();
+		propertyListeners.clear();
+		stateBaseline = null;
 
 		spriteBatch = new SpriteBatch();
 
@@ -176,6 +212,10 @@ public class World implements Serializable, AssetConsumer {
 		disposed = false;
 
 		initGame = true;
+
+		// the chapter model is discarded, keep only the world verbs
+		ActionCallbackSerialization.clearRegistry();
+		ActionCallbackSerialization.register(this, verbs);
 	}
 
 	public InkManager getInkManager() {
@@ -220,6 +260,53 @@ public class World implements Serializable, AssetConsumer {
 			customProperties.remove(name);
 		else
 			customProperties.put(name, value);
+
+		firePropertyChange(this, name, value);
+	}
+
+	public void addPropertyChangeListener(PropertyChangeListener l) {
+		if (!propertyListeners.contains(l, true))
+			propertyListeners.add(l);
+	}
+
+	public void removePropertyChangeListener(PropertyChangeListener l) {
+		propertyListeners.removeValue(l, true);
+	}
+
+	/**
+	 * Removes the listeners that are callbacks of the verbs of the scene or its
+	 * actors. The listeners of the world, inventory, UI and Ink verbs keep
+	 * waiting after leaving the scene.
+	 */
+	private void removePropertyChangeListeners(Scene s) {
+		for (int i = propertyListeners.size - 1; i >= 0; i--) {
+			PropertyChangeListener l = propertyListeners.get(i);
+
+			if (!(l instanceof ActionCallback))
+				continue;
+
+			Object owner = ActionCallbackSerialization.getOwner((ActionCallback) l);
+
+			if (owner == s || (owner instanceof BaseActor && s.getActors().get(((BaseActor) owner).getId()) == owner))
+				propertyListeners.removeIndex(i);
+		}
+	}
+
+	/**
+	 * Notifies the change of a custom property or an actor/scene state to the
+	 * registered listeners.
+	 */
+	public void firePropertyChange(Object source, String property, String value) {
+		if (propertyListeners.size == 0)
+			return;
+
+		PropertyChangeListener[] items = propertyListeners.begin();
+
+		for (int i = 0, n = propertyListeners.size; i < n; i++) {
+			items[i].propertyChanged(source, property, value);
+		}
+
+		propertyListeners.end();
 	}
 
 	public VerbManager getVerbManager() {
@@ -251,7 +338,7 @@ public class World implements Serializable, AssetConsumer {
 		}
 
 		if ((assetState == AssetState.LOADING || assetState == AssetState.LOADING_AND_INIT_SCENE)
-				&& !EngineAssetManager.getInstance().isLoading()) {
+				&& EngineAssetManager.getInstance().updateFrame()) {
 
 			retrieveAssets();
 
@@ -287,6 +374,8 @@ public class World implements Serializable, AssetConsumer {
 				}
 				
 				initCurrentScene();
+
+				getAutoSave().request();
 			}
 
 		}
@@ -308,7 +397,12 @@ public class World implements Serializable, AssetConsumer {
 
 		musicEngine.update(delta);
 
+		if (soundManager != null)
+			soundManager.update(delta);
+
 		ActionCallbackQueue.run();
+
+		getAutoSave().update(delta);
 	}
 
 	@Override
@@ -405,6 +499,7 @@ public class World implements Serializable, AssetConsumer {
 		if (currentScene != null) {
 			textManager.reset();
 			timers.clear();
+			removePropertyChangeListeners(currentScene);
 			currentDialog = null;
 
 			// Stop Sounds
@@ -429,6 +524,10 @@ public class World implements Serializable, AssetConsumer {
 
 		currentScene = scene;
 
+		// the actors of the current scene change every frame
+		if (stateBaseline != null)
+			stateBaseline.sceneChanged(scene);
+
 		musicEngine.leaveScene(currentScene.getMusicDesc());
 	}
 
@@ -457,7 +556,12 @@ public class World implements Serializable, AssetConsumer {
 	}
 
 	public Scene getScene(String id) {
-		return scenes.get(id);
+		Scene s = scenes.get(id);
+
+		if (s != null && stateBaseline != null)
+			stateBaseline.headerChanged(s);
+
+		return s;
 	}
 
 	public Map<String, Scene> getScenes() {
@@ -599,6 +703,7 @@ public class World implements Serializable, AssetConsumer {
 
 			textManager.reset();
 			timers.clear();
+			propertyListeners.clear();
 
 			currentDialog = null;
 
@@ -606,6 +711,7 @@ public class World implements Serializable, AssetConsumer {
 
 			// Clear all pending callbacks
 			ActionCallbackQueue.clear();
+			ScriptProfiler.reset();
 
 			// ONLY dispose currentscene because other scenes are already
 			// disposed
@@ -630,9 +736,19 @@ public class World implements Serializable, AssetConsumer {
 			assetState = null;
 
 			musicEngine.dispose();
+
+			// the sounds released by the scenes and actors are disposed now
+			if (soundManager != null) {
+				soundManager.dispose();
+				soundManager = null;
+			}
 			
 			inkManager = null;
 
+			// waits for the pending autosave
+			if (autoSave != null)
+				autoSave.dispose();
+
 		} catch (Exception e) {
 			EngineLogger.error(e.getMessage());
 		}
@@ -769,8 +885,8 @@ public class World implements Serializable, AssetConsumer {
 		if (EngineAssetManager.getInstance().getModelFile(EngineAssetManager.WORLD_FILENAME_JSON).exists()) {
 			SerializationHelper.getInstance().setMode(Mode.MODEL);
 
-			JsonValue root = new JsonReader().parse(EngineAssetManager.getInstance()
-					.getModelFile(EngineAssetManager.WORLD_FILENAME_JSON).reader("UTF-8"));
+			JsonValue root = new JsonReader().parse(FileUtils.reader(
+					EngineAssetManager.getInstance().getModelFile(EngineAssetManager.WORLD_FILENAME_JSON), "UTF-8"));
 
 			Json json = new Json();
 			json.setIgnoreUnknownFields(true);
@@ -786,6 +902,7 @@ public class World implements Serializable, AssetConsumer {
 			setHeight((int) (height * scale));
 			setInitChapter(json.readValue("initChapter", String.class, root));
 			verbs.read(json, root);
+			ActionCallbackSerialization.register(this, verbs);
 			I18N.loadWorld(EngineAssetManager.MODEL_DIR + "world");
 		} else {
 			EngineLogger.error("ERROR LOADING WORLD: world.json doesn't exists.");
@@ -831,6 +948,7 @@ public class World implements Serializable, AssetConsumer {
 		init();
 
 		long initTime = System.currentTimeMillis();
+		peakHeap = 0;
 
 		SerializationHelper.getInstance().setMode(Mode.MODEL);
 
@@ -839,14 +957,64 @@ public class World implements Serializable, AssetConsumer {
 
 		currentChapter = chapterName;
 
-		if (EngineAssetManager.getInstance().getModelFile(chapterName + EngineAssetManager.CHAPTER_EXT).exists()) {
+		FileHandle chapterFile = EngineAssetManager.getInstance()
+				.getModelFile(chapterName + EngineAssetManager.CHAPTER_EXT);
 
-			JsonValue root = new JsonReader().parse(EngineAssetManager.getInstance()
-					.getModelFile(chapterName + EngineAssetManager.CHAPTER_EXT).reader("UTF-8"));
+		// the bundle generated when packaging is used if it is up to date
+		FileHandle bundleFile = EngineAssetManager.getInstance()
+				.getModelFile(chapterName + EngineAssetManager.CHAPTER_BUNDLE_EXT);
 
-			Json json = new Json();
+		if (bundleFile.exists()
+				&& (!chapterFile.exists() || bundleFile.lastModified() >= chapterFile.lastModified()))
+			chapterFile = bundleFile;
+
+		FileHandle manifestFile = EngineAssetManager.getInstance()
+				.getModelFile(chapterName + AssetManifest.MANIFEST_EXT);
+
+		if (manifestFile.exists()
+				&& (!chapterFile.exists() || manifestFile.lastModified() >= chapterFile.lastModified())) {
+			try {
+				assetManifest = AssetManifest.load(manifestFile);
+			} catch (Exception e) {
+				EngineLogger.error("Error reading asset manifest, ignoring it.", e);
+				assetManifest = null;
+			}
+		} else {
+			assetManifest = null;
+		}
+
+		if (chapterFile.exists()) {
+
+			final Json json = new Json();
 			json.setIgnoreUnknownFields(true);
 
+			if (Config.getProperty(Config.DELTA_GAMESTATE_PROP, true))
+				stateBaseline = new StateBaseline();
+
+			final boolean lazy = Config.getProperty(Config.LAZY_SCENES_PROP, true);
+			JsonValue root;
+
+			InputStream is = new BufferedInputStream(FileUtils.read(chapterFile));
+
+			if (ChapterBundle.isBundle(is)) {
+				root = ChapterBundle.read(is, new ChapterBundle.SceneListener() {
+					@Override
+					public void scene(String id, byte[] data) {
+						addScene(json, id, SceneSource.fromBinary(data), lazy);
+					}
+				});
+			} else {
+				// The scenes are parsed and read one by one to avoid the DOM of
+				// the full chapter in memory. If lazy, they are read when used.
+				root = new StreamingJsonReader().parse(new InputStreamReader(is, "UTF-8"), "scenes",
+						new StreamingJsonReader.MemberListener() {
+							@Override
+							public void member(String name, String text) {
+								addScene(json, name, SceneSource.fromText(text), lazy);
+							}
+						});
+			}
+
 			read(json, root);
 
 			I18N.loadChapter(EngineAssetManager.MODEL_DIR + chapterName);
@@ -860,9 +1028,60 @@ public class World implements Serializable, AssetConsumer {
 					"ERROR LOADING CHAPTER: " + chapterName + EngineAssetManager.CHAPTER_EXT + " doesn't exists.");
 		}
 
-		EngineLogger.debug("MODEL LOADING TIME (ms): " + (System.currentTimeMillis() - initTime));
+		if (EngineLogger.debugMode()) {
+			updatePeakHeap();
+			EngineLogger.debug("MODEL LOADING TIME (ms): " + (System.currentTimeMillis() - initTime)
+					+ " PEAK HEAP (MB): " + peakHeap / (1024 * 1024));
+		}
+	}
+
+	private void addScene(Json json, String id, SceneSource source, boolean lazy) {
+		if (lazy) {
+			scenes.putSource(id, source);
+			return;
+		}
+
+		JsonValue v = source.parse();
+
+		if (EngineLogger.debugMode())
+			updatePeakHeap();
+
+		Scene s = json.readValue(Scene.class, v);
+		scenes.put(id, s);
+		sceneLoaded(s);
+	}
+
+	/**
+	 * Called when a scene is read from the chapter model.
+	 */
+	private void sceneLoaded(Scene s) {
+		s.resetCamera(width, height);
+
+		if (stateBaseline != null)
+			stateBaseline.capture(s);
+	}
+
+	private void updatePeakHeap() {
+		Runtime rt = Runtime.getRuntime();
+		peakHeap = Math.max(peakHeap, rt.totalMemory() - rt.freeMemory());
 	}
 	
+	public SoundManager getSoundManager() {
+		// Lazy creation
+		if (soundManager == null)
+			soundManager = new SoundManager();
+
+		return soundManager;
+	}
+
+	public AutoSave getAutoSave() {
+		// Lazy creation
+		if (autoSave == null)
+			autoSave = new AutoSave();
+
+		return autoSave;
+	}
+
 	private  ObjectWrapper getObjectWrapper() {
 		if(wrapper == null)
 			wrapper = new ObjectWrapper(this);
@@ -870,6 +1089,41 @@ public class World implements Serializable, AssetConsumer {
 		return wrapper;
 	}
 
+	/**
+	 * Serializes the complete STATE, all the scenes and actors, ignoring the
+	 * delta saved game marks. Used by StateDump, the marks depend on the
+	 * objects looked up and not only on the state.
+	 */
+	String getFullState(Json json) {
+		// loaded before disabling the baseline so they are captured
+		scenes.loadAll();
+
+		StateBaseline baseline = stateBaseline;
+		stateBaseline = null;
+
+		try {
+			return json.toJson(this, World.class);
+		} finally {
+			stateBaseline = baseline;
+		}
+	}
+
+	/**
+	 * @return The chapter model state used to write delta saved games or null
+	 *         if delta saved games are disabled.
+	 */
+	public StateBaseline getStateBaseline() {
+		return stateBaseline;
+	}
+
+	/**
+	 * @return The asset manifest of the current chapter or null if it was not
+	 *         generated or is older than the chapter.
+	 */
+	public AssetManifest getAssetManifest() {
+		return assetManifest;
+	}
+
 	public void setModelProp(String prop, String value) {
 		getObjectWrapper().setValue(prop, value);
 	}
@@ -931,7 +1185,7 @@ public class World implements Serializable, AssetConsumer {
 		if (savedFile.exists()) {
 			SerializationHelper.getInstance().setMode(Mode.STATE);
 
-			JsonValue root = new JsonReader().parse(savedFile.reader("UTF-8"));
+			JsonValue root = parseGameState(savedFile);
 
 			Json json = new Json();
 			json.setIgnoreUnknownFields(true);
@@ -945,6 +1199,36 @@ public class World implements Serializable, AssetConsumer {
 		}
 	}
 
+	/**
+	 * Parses a saved game in binary or JSON format, compressed or not.
+	 */
+	private JsonValue parseGameState(FileHandle savedFile) throws IOException {
+		InputStream is = new BufferedInputStream(FileUtils.read(savedFile));
+
+		if (BinaryJsonReader.isBinary(is))
+			return new BinaryJsonReader().parse(is);
+
+		return new JsonReader().parse(new InputStreamReader(is, "UTF-8"));
+	}
+
+	/**
+	 * Writes a saved game in pretty JSON format for debugging. The saved game
+	 * can be in binary or JSON format. The generated JSON file can be loaded as
+	 * a saved game.
+	 */
+	public void exportGameStateJSON(FileHandle savedFile, FileHandle jsonFile) throws IOException {
+		JsonValue root = parseGameState(savedFile);
+
+		Writer w = jsonFile.writer(false, "UTF-8");
+
+		try {
+			w.write(root.prettyPrint(OutputType.javascript, 0));
+			w.flush();
+		} finally {
+			w.close();
+		}
+	}
+
 	public void saveGameState() throws IOException {
 		saveGameState(GAMESTATE_FILENAME);
 	}
@@ -952,6 +1236,11 @@ public class World implements Serializable, AssetConsumer {
 	public void removeGameState(String filename) throws IOException {
 		EngineAssetManager.getInstance().getUserFile(filename).delete();
 		EngineAssetManager.getInstance().getUserFile(filename + ".png").delete();
+
+		String slot = SaveGameIndex.getSlot(filename);
+
+		if (slot != null)
+			SaveGameIndex.remove(slot);
 	}
 
 	public void saveGameState(String filename) throws IOException {
@@ -960,31 +1249,117 @@ public class World implements Serializable, AssetConsumer {
 		if (disposed)
 			return;
 
-		Json json = new Json();
-		json.setOutputType(OutputType.javascript);
+		byte[] state = getGameStateSnapshot();
 
-		String s = null;
+		// written to a temporary file and renamed to not leave the slot half
+		// written
+		FileHandle file = EngineAssetManager.getInstance().getUserFile(filename);
+		FileHandle tmp = file.sibling(file.name() + TMP_EXT);
 
-		SerializationHelper.getInstance().setMode(Mode.STATE);
+		writeGameState(tmp, state);
+		FileUtils.replace(tmp, file);
 
-		if (EngineLogger.debugMode())
-			s = json.prettyPrint(this);
-		else
-			s = json.toJson(this);
+		// Save Screenshot
+		takeScreenshot(filename + ".png", SCREENSHOT_DEFAULT_WIDTH);
+
+		SaveGameIndex.Entry entry = createSaveGameIndexEntry(filename);
+
+		if (entry != null)
+			SaveGameIndex.put(entry);
+	}
+
+	/**
+	 * @return The saved games index metadata of the current game or null if
+	 *         the filename is not a saved game slot.
+	 */
+	public SaveGameIndex.Entry createSaveGameIndexEntry(String filename) {
+		String slot = SaveGameIndex.getSlot(filename);
+
+		if (slot == null)
+			return null;
+
+		SaveGameIndex.Entry e = new SaveGameIndex.Entry();
+		e.slot = slot;
+		e.timestamp = System.currentTimeMillis();
+		e.chapter = currentChapter;
+		e.scene = currentScene != null ? currentScene.getId() : null;
+		e.playTime = timeOfGame;
 
-		Writer w = EngineAssetManager.getInstance().getUserFile(filename).writer(false, "UTF-8");
+		return e;
+	}
+
+	/**
+	 * Writes a game state snapshot to a file. It is compressed (with CRC) if the
+	 * 'compress_gamestate' config property is true (default) and not in debug
+	 * mode.
+	 *
+	 * Can be called from a background thread.
+	 */
+	public void writeGameState(FileHandle file, byte[] state) throws IOException {
+		boolean compress = Config.getProperty(Config.COMPRESS_GAMESTATE_PROP, true) && !EngineLogger.debugMode();
+
+		OutputStream os = null;
 
 		try {
-			w.write(s);
-			w.flush();
-		} catch (IOException e) {
+			os = FileUtils.write(file, compress);
+			os.write(state);
+			os.flush();
+		} catch (GdxRuntimeException e) {
 			throw new IOException("ERROR SAVING GAME", e);
 		} finally {
-			w.close();
+			if (os != null)
+				os.close();
 		}
+	}
 
-		// Save Screenshot
-		takeScreenshot(filename + ".png", SCREENSHOT_DEFAULT_WIDTH);
+	/**
+	 * Serializes the game state in the saved game format. The result is
+	 * immutable and can be written to disk in a background thread.
+	 *
+	 * The binary format is used if the 'binary_gamestate' config property is
+	 * true. When it is not set, it is used except in debug mode, where JSON is
+	 * used to inspect the saved games. Set it to true to use the binary format
+	 * in debug builds.
+	 *
+	 * Must be called in the game thread.
+	 */
+	public byte[] getGameStateSnapshot() throws IOException {
+		long initTime = System.currentTimeMillis();
+
+		Json json = new Json();
+		json.setOutputType(OutputType.javascript);
+
+		SerializationHelper.getInstance().setMode(Mode.STATE);
+
+		String binaryProp = Config.getProperty(Config.BINARY_GAMESTATE_PROP, null);
+		boolean binary = binaryProp != null ? Boolean.parseBoolean(binaryProp) : !EngineLogger.debugMode();
+		byte[] state;
+
+		if (binary) {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+			try {
+				json.toJson(this, World.class, null, new BinaryJsonWriter(bos));
+			} catch (SerializationException e) {
+				throw new IOException("ERROR SAVING GAME", e);
+			}
+
+			state = bos.toByteArray();
+		} else {
+			String s = null;
+
+			if (EngineLogger.debugMode())
+				s = json.prettyPrint(this);
+			else
+				s = json.toJson(this);
+
+			state = s.getBytes("UTF-8");
+		}
+
+		EngineLogger.debug("GAME STATE " + (binary ? "BINARY" : "JSON") + " SIZE (bytes): " + state.length
+				+ " TIME (ms): " + (System.currentTimeMillis() - initTime));
+
+		return state;
 	}
 
 	public void saveModel(String chapterId) throws IOException {
@@ -1005,8 +1380,9 @@ public class World implements Serializable, AssetConsumer {
 		else
 			s = json.toJson(this);
 
-		Writer w = EngineAssetManager.getInstance().getModelFile(chapterId + EngineAssetManager.CHAPTER_EXT)
-				.writer(false, "UTF-8");
+		Writer w = FileUtils.writer(
+				EngineAssetManager.getInstance().getModelFile(chapterId + EngineAssetManager.CHAPTER_EXT),
+				Config.getProperty(Config.COMPRESS_MODEL_PROP, false), "UTF-8");
 
 		try {
 			w.write(s);
@@ -1019,6 +1395,28 @@ public class World implements Serializable, AssetConsumer {
 	}
 
 	public void takeScreenshot(String filename, int w) {
+		Pixmap pixmap = getScreenshot(w);
+
+		FileHandle file = EngineAssetManager.getInstance().getUserFile(filename);
+		FileHandle tmp = file.sibling(file.name() + TMP_EXT);
+
+		try {
+			PixmapIO.writePNG(tmp, pixmap);
+			FileUtils.replace(tmp, file);
+		} catch (IOException e) {
+			EngineLogger.error("Error writing screenshot: " + filename, e);
+		} finally {
+			pixmap.dispose();
+		}
+	}
+
+	/**
+	 * Renders the current scene in a new Pixmap. The Pixmap can be encoded in a
+	 * background thread and must be disposed by the caller.
+	 *
+	 * Must be called in the GL thread.
+	 */
+	public Pixmap getScreenshot(int w) {
 
 		int h = (int) (w * getSceneCamera().viewportHeight / getSceneCamera().viewportWidth);
 
@@ -1030,6 +1428,7 @@ public class World implements Serializable, AssetConsumer {
 		draw();
 		Pixmap pixmap = ScreenUtils.getFrameBufferPixmap(0, 0, w, h);
 		fbo.end();
+		fbo.dispose();
 
 		// Flip the pixmap upside down
 		ByteBuffer pixels = pixmap.getPixels();
@@ -1043,7 +1442,7 @@ public class World implements Serializable, AssetConsumer {
 		pixels.clear();
 		pixels.put(lines);
 
-		PixmapIO.writePNG(EngineAssetManager.getInstance().getUserFile(filename), pixmap);
+		return pixmap;
 	}
 
 	@Override
@@ -1059,7 +1458,23 @@ public class World implements Serializable, AssetConsumer {
 			json.writeValue(Config.BLADE_ENGINE_VERSION_PROP,
 					Config.getProperty(Config.BLADE_ENGINE_VERSION_PROP, null));
 			json.writeValue(Config.VERSION_PROP, Config.getProperty(Config.VERSION_PROP, null));
-			json.writeValue("scenes", scenes, scenes.getClass(), Scene.class);
+
+			if (stateBaseline != null) {
+				// only the scenes that differ from the chapter model
+				json.writeValue("delta", true);
+				json.writeObjectStart("scenes");
+
+				// the scenes not loaded are not changed
+				for (Scene s : scenes.getLoadedScenes()) {
+					if (stateBaseline.isChanged(s))
+						json.writeValue(s.getId(), s, Scene.class);
+				}
+
+				json.writeObjectEnd();
+			} else {
+				json.writeValue("scenes", scenes, scenes.getClass(), Scene.class);
+			}
+
 			json.writeValue("currentScene", currentScene.getId());
 			json.writeValue("inventories", inventories);
 			json.writeValue("currentInventory", currentInventory);
@@ -1102,17 +1517,22 @@ public class World implements Serializable, AssetConsumer {
 						+ Config.getProperty(Config.BLADE_ENGINE_VERSION_PROP, ""));
 			}
 
-			scenes = json.readValue("scenes", HashMap.class, Scene.class, jsonData);
+			// the scenes are already read when the chapter is streamed
+			if (jsonData.has("scenes")) {
+				HashMap<String, Scene> m = json.readValue("scenes", HashMap.class, Scene.class, jsonData);
+
+				for (Scene s : m.values()) {
+					scenes.put(s.getId(), s);
+					sceneLoaded(s);
+				}
+			}
+
 			initScene = json.readValue("initScene", String.class, jsonData);
 
 			if (initScene == null && scenes.size() > 0) {
 				initScene = scenes.keySet().toArray(new String[0])[0];
 			}
 
-			for (Scene s : scenes.values()) {
-				s.resetCamera(width, height);
-			}
-
 			setCurrentScene(initScene);
 		} else {
 			String bladeVersion = json.readValue(Config.BLADE_ENGINE_VERSION_PROP, String.class, jsonData);
@@ -1129,6 +1549,7 @@ public class World implements Serializable, AssetConsumer {
 				version = "TEST";
 
 			currentChapter = json.readValue("chapter", String.class, jsonData);
+			boolean delta = json.readValue("delta", boolean.class, false, jsonData);
 
 			try {
 				loadChapter(currentChapter);
@@ -1147,13 +1568,23 @@ public class World implements Serializable, AssetConsumer {
 				getInkManager().read(json, jsonData.get("inkManager"));
 			}
 
-			for (Scene s : scenes.values()) {
-				JsonValue jsonValue = jsonData.get("scenes").get(s.getId());
+			// only the scenes in the saved game are loaded
+			JsonValue scenesValue = jsonData.get("scenes");
+
+			for (JsonValue jsonValue = scenesValue.child; jsonValue != null; jsonValue = jsonValue.next) {
+				Scene s = scenes.get(jsonValue.name);
 
-				if (jsonValue != null)
+				if (s != null)
 					s.read(json, jsonValue);
 				else
-					EngineLogger.debug("LOAD WARNING: Scene not found in saved game: " + s.getId());
+					EngineLogger.debug("LOAD WARNING: Scene not found in model: " + jsonValue.name);
+			}
+
+			if (!delta) {
+				for (String id : scenes.keySet()) {
+					if (!scenesValue.has(id))
+						EngineLogger.debug("LOAD WARNING: Scene not found in saved game: " + id);
+				}
 			}
 
 			inventories = json.readValue("inventories", HashMap.class, Inventory.class, jsonData);
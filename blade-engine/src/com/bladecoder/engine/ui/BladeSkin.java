@@ -9,7 +9,6 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
 import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
 import com.badlogic.gdx.scenes.scene2d.ui.Button;
 import com.badlogic.gdx.scenes.scene2d.ui.CheckBox;
@@ -40,8 +39,8 @@ import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.SerializationException;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.badlogic.gdx.utils.reflect.ReflectionException;
+import com.bladecoder.engine.assets.FontManager;
 import com.bladecoder.engine.util.DPIUtils;
-import com.bladecoder.engine.util.EngineLogger;
 import com.bladecoder.engine.util.FileUtils;
 
 /**
@@ -51,6 +50,10 @@ import com.bladecoder.engine.util.FileUtils;
  */
 public class BladeSkin extends Skin {
 
+	// The TTF fonts obtained from the FontManager. It is created when loading
+	// the skin in the super constructor, it must not have initializer.
+	private ArrayList<BitmapFont> sharedFonts;
+
 	public BladeSkin(FileHandle skinFile) {
 		super(skinFile);
 	}
@@ -122,9 +125,6 @@ public class BladeSkin extends Skin {
 					if (size == -1)
 						throw new SerializationException("'size' mandatory parameter for .ttf fonts");
 					
-					long initTime = System.currentTimeMillis();
-
-					FreeTypeFontGenerator generator = new FreeTypeFontGenerator(fontFile);
 					FreeTypeFontParameter parameter = new FreeTypeFontParameter();
 					parameter.size = (int) (DPIUtils.dpToPixels(size) * DPIUtils.getSizeMultiplier());
 					parameter.incremental = json.readValue("incremental", boolean.class, true, jsonData);
@@ -141,11 +141,13 @@ public class BladeSkin extends Skin {
 
 					//	parameter.mono = false;
 
-					font = generator.generateFont(parameter);
-					
-					EngineLogger.debug(path + " TIME (ms): " + (System.currentTimeMillis() - initTime));
-					
-					// TODO Dispose all generators.
+					// shared with the other styles using the same font and size
+					font = FontManager.getInstance().get(fontFile, parameter);
+
+					if (sharedFonts == null)
+						sharedFonts = new ArrayList<BitmapFont>();
+
+					sharedFonts.add(font);
 
 				} else {
 
@@ -189,6 +191,18 @@ public class BladeSkin extends Skin {
 		return json;
 	}
 	
+	@Override
+	public void dispose() {
+		if (sharedFonts != null) {
+			for (BitmapFont f : sharedFonts)
+				FontManager.getInstance().release(f);
+
+			sharedFonts = null;
+		}
+
+		super.dispose();
+	}
+
 	private static final Class<?>[] AUTO_TAGGED_STYLES = {
 			BitmapFont.class, Color.class, TintedDrawable.class,
 			NinePatchDrawable.class, SpriteDrawable.class, TextureRegionDrawable.class, TiledDrawable.class,
@@ -15,6 +15,7 @@
  ******************************************************************************/
 package com.bladecoder.engine.ui;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 import com.badlogic.gdx.Gdx;
@@ -37,13 +38,24 @@ import com.badlogic.gdx.scenes.scene2d.ui.TextField;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.utils.Align;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
+import com.bladecoder.engine.actions.ActionCallbackQueue;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.assets.FontManager;
+import com.bladecoder.engine.model.SoundManager;
+import com.bladecoder.engine.model.StateDump;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.DPIUtils;
+import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.ScriptProfiler;
 
 public class DebugScreen implements BladeScreen {
+	private static final int PROFILER_REPORT_LINES = 10;
+	private static final String PROFILER_FILENAME = "profiler";
+	private static final int ASSET_REPORT_LINES = 8;
+	private static final float ASSET_REPORT_INTERVAL = 1f;
+
 	private UI ui;
 
 	private Stage stage;
@@ -60,6 +72,10 @@ public class DebugScreen implements BladeScreen {
 
 	private Pointer pointer;
 
+	private Label assetReport;
+	private Label callbackReport;
+	private float assetReportTime;
+
 	public DebugScreen() {
 	}
 
@@ -68,10 +84,36 @@ public class DebugScreen implements BladeScreen {
 		Gdx.gl.glClearColor(0, 0, 0, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
+		assetReportTime += delta;
+
+		if (assetReportTime > ASSET_REPORT_INTERVAL) {
+			assetReportTime = 0;
+			assetReport.setText(getAssetReport());
+			callbackReport.setText(getCallbackReport());
+		}
+
 		stage.act(delta);
 		stage.draw();
 	}
 
+	private String getAssetReport() {
+		SoundManager sm = World.getInstance().getSoundManager();
+
+		FontManager fm = FontManager.getInstance();
+
+		return EngineAssetManager.getInstance().getMemoryReport(ASSET_REPORT_LINES) + "Sounds: "
+				+ sm.getLoadedCount() + " (" + sm.getLoadedBytes() / 1024 + "KB)  Fonts: " + fm.getLoadedCount()
+				+ " (" + fm.getLoadedBytes() / 1024 + "KB)";
+	}
+
+	private String getCallbackReport() {
+		int max = ActionCallbackQueue.getMaxPerFrame();
+
+		return "Queued: " + ActionCallbackQueue.getQueueDepth() + " Posted: " + ActionCallbackQueue.getPostedDepth()
+				+ " Max. Queued: " + ActionCallbackQueue.getMaxQueueDepth() + " Last Run: "
+				+ ActionCallbackQueue.getLastRunCount() + " Per Frame: " + (max > 0 ? max : "no limit");
+	}
+
 	@Override
 	public void resize(int width, int height) {
 		stage.getViewport().update(width, height, true);
@@ -360,6 +402,129 @@ public class DebugScreen implements BladeScreen {
 		table.add();
 		table.add(botGroup2);
 
+		// ------------- SCRIPT PROFILER
+		final Label profilerReport = new Label(ScriptProfiler.getReport(PROFILER_REPORT_LINES), ui.getSkin(),
+				"debug");
+
+		final TextButton profilerEnabled = new TextButton("Enabled", ui.getSkin(), "toggle");
+		profilerEnabled.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				ScriptProfiler.setEnabled(!ScriptProfiler.isEnabled());
+			}
+		});
+
+		profilerEnabled.setChecked(ScriptProfiler.isEnabled());
+
+		TextButton profilerReset = new TextButton("Reset", ui.getSkin());
+		profilerReset.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				ScriptProfiler.reset();
+				profilerReport.setText(ScriptProfiler.getReport(PROFILER_REPORT_LINES));
+			}
+		});
+
+		TextButton profilerJSON = new TextButton("Export JSON", ui.getSkin());
+		profilerJSON.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				try {
+					ScriptProfiler.exportJSON(EngineAssetManager.getInstance().getUserFile(PROFILER_FILENAME + ".json"));
+				} catch (IOException e) {
+					EngineLogger.error("ERROR EXPORTING PROFILER DATA", e);
+				}
+			}
+		});
+
+		TextButton profilerCSV = new TextButton("Export CSV", ui.getSkin());
+		profilerCSV.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				try {
+					ScriptProfiler.exportCSV(EngineAssetManager.getInstance().getUserFile(PROFILER_FILENAME + ".csv"));
+				} catch (IOException e) {
+					EngineLogger.error("ERROR EXPORTING PROFILER DATA", e);
+				}
+			}
+		});
+
+		profilerReset.pad(2, 3, 2, 3);
+		profilerJSON.pad(2, 3, 2, 3);
+		profilerCSV.pad(2, 3, 2, 3);
+
+		HorizontalGroup profilerGroup = new HorizontalGroup();
+		profilerGroup.space(10);
+		profilerGroup.addActor(profilerEnabled);
+		profilerGroup.addActor(profilerReset);
+		profilerGroup.addActor(profilerJSON);
+		profilerGroup.addActor(profilerCSV);
+
+		table.row().pad(5).align(Align.left);
+		table.add(new Label("Script Profiler: ", ui.getSkin(), "debug"));
+		table.add(profilerGroup);
+		table.row().pad(5).align(Align.left);
+		table.add();
+		table.add(profilerReport).left();
+
+		// ------------- ASSET MEMORY
+		assetReport = new Label(getAssetReport(), ui.getSkin(), "debug");
+		assetReportTime = 0;
+
+		table.row().pad(5).align(Align.left);
+		table.add(new Label("Asset Memory: ", ui.getSkin(), "debug"));
+		table.add(assetReport).left();
+
+		// ------------- ACTION CALLBACKS
+		callbackReport = new Label(getCallbackReport(), ui.getSkin(), "debug");
+
+		TextButton callbackReset = new TextButton("Reset", ui.getSkin());
+		callbackReset.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				ActionCallbackQueue.resetMetrics();
+				callbackReport.setText(getCallbackReport());
+			}
+		});
+
+		callbackReset.pad(2, 3, 2, 3);
+
+		HorizontalGroup callbackGroup = new HorizontalGroup();
+		callbackGroup.space(10);
+		callbackGroup.addActor(callbackReport);
+		callbackGroup.addActor(callbackReset);
+
+		table.row().pad(5).align(Align.left);
+		table.add(new Label("Callbacks: ", ui.getSkin(), "debug"));
+		table.add(callbackGroup).left();
+
+		// ------------- STATE DUMP
+		final Label dumpResult = new Label("", ui.getSkin(), "debug");
+
+		TextButton dump = new TextButton("Dump", ui.getSkin());
+		dump.addListener(new ClickListener() {
+
+			public void clicked(InputEvent event, float x, float y) {
+				try {
+					FileHandle file = StateDump.write(World.getInstance());
+					dumpResult.setText(file.name());
+				} catch (Exception e) {
+					EngineLogger.error("ERROR DUMPING STATE", e);
+				}
+			}
+		});
+
+		dump.pad(2, 3, 2, 3);
+
+		HorizontalGroup dumpGroup = new HorizontalGroup();
+		dumpGroup.space(10);
+		dumpGroup.addActor(dump);
+		dumpGroup.addActor(dumpResult);
+
+		table.row().pad(5).align(Align.left);
+		table.add(new Label("State Dump: ", ui.getSkin(), "debug"));
+		table.add(dumpGroup);
+
 		// ------------- VERSION LABEL NOT IN TABLE
 		String versionString = Config.getProperty(Config.TITLE_PROP, "title unspecified") + " v"
 				+ Config.getProperty(Config.VERSION_PROP, "unspecified") + "\n" + "Blade Engine: v"
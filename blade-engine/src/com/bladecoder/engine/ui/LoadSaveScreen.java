@@ -20,6 +20,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 
 import com.badlogic.gdx.Gdx;
@@ -28,6 +29,7 @@ import com.badlogic.gdx.ScreenAdapter;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -47,10 +49,16 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.utils.ClickListener;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.i18n.I18N;
+import com.bladecoder.engine.model.SaveGameIndex;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.ui.UI.Screens;
 import com.bladecoder.engine.util.DPIUtils;
@@ -60,6 +68,9 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 	private static final int ROW_SLOTS = 3;
 	private static final int COL_SLOTS = 2;
 
+	// Limit texture uploads to avoid frame drops while scrolling
+	private static final int MAX_THUMB_UPLOADS_PER_FRAME = 1;
+
 	private UI ui;
 
 	private Stage stage;
@@ -70,11 +81,26 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 	private int slotWidth = 0;
 	private int slotHeight = 0;
 
-	// texture list for final dispose
-	private final ArrayList<Texture> textureList = new ArrayList<Texture>();
+	// Thumbnails are decoded in background only for the visible slots and
+	// disposed when they scroll away
+	private final ArrayList<SlotThumb> thumbs = new ArrayList<SlotThumb>();
+	private AsyncExecutor thumbLoader;
+	private PagedScrollPane scroll;
+	private final Vector2 tmpPos = new Vector2();
+
+	private HashMap<String, SaveGameIndex.Entry> index;
 
 	private Pointer pointer;
 
+	private static class SlotThumb {
+		String slot;
+		Image image;
+		AsyncResult<Pixmap> pending;
+		Pixmap pixmap;
+		Texture texture;
+		boolean error;
+	}
+
 	public LoadSaveScreen() {
 	}
 
@@ -84,6 +110,7 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
 		stage.act(delta);
+		updateThumbs();
 		stage.draw();
 	}
 
@@ -105,8 +132,27 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 
 			bgTexFile = null;
 
-			for (Texture t : textureList)
-				t.dispose();
+			// waits for the pending decodes
+			thumbLoader.dispose();
+			thumbLoader = null;
+
+			for (SlotThumb t : thumbs) {
+				if (t.pending != null) {
+					try {
+						t.pixmap = t.pending.get();
+					} catch (Exception e) {
+					}
+				}
+
+				if (t.pixmap != null)
+					t.pixmap.dispose();
+
+				if (t.texture != null)
+					t.texture.dispose();
+			}
+
+			thumbs.clear();
+			scroll = null;
 		}
 	}
 
@@ -121,6 +167,8 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 		loadScreenMode = world.getCurrentScene() == null;
 
 		stage = new Stage(new ScreenViewport());
+		thumbLoader = new AsyncExecutor(1);
+		index = SaveGameIndex.load();
 
 		slotWidth = (int) (stage.getViewport().getWorldWidth() / (ROW_SLOTS + 1) - 2 * pad);
 		slotHeight = (int) (slotWidth * stage.getViewport().getScreenHeight() / stage.getViewport().getScreenWidth());
@@ -173,7 +221,7 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 			}
 		});
 
-		final PagedScrollPane scroll = new PagedScrollPane();
+		scroll = new PagedScrollPane();
 		scroll.setFlingTime(0.1f);
 		scroll.setPageSpacing(25);
 
@@ -254,6 +302,32 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 	 * @param slot
 	 * @return The button to use for one slot
 	 */
+	/**
+	 * @return The chapter, scene and play time of a saved game index entry.
+	 */
+	private String getEntryInfo(SaveGameIndex.Entry entry) {
+		StringBuilder sb = new StringBuilder();
+
+		if (entry.chapter != null)
+			sb.append(entry.chapter);
+
+		if (entry.scene != null) {
+			if (sb.length() > 0)
+				sb.append(" - ");
+
+			sb.append(entry.scene);
+		}
+
+		long minutes = entry.playTime / 60000;
+
+		if (sb.length() > 0)
+			sb.append(' ');
+
+		sb.append(String.format("(%d:%02d)", minutes / 60, minutes % 60));
+
+		return sb.toString();
+	}
+
 	private Button getSlotButton(String slot) {
 		final Skin skin = ui.getSkin();
 		final Button button = new Button(new ButtonStyle());
@@ -264,15 +338,22 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 		button.setSize(slotWidth, slotHeight);
 
 		if (slotExists(slot)) {
-			button.add(getScreenshot(slot)).maxSize(slotWidth * .95f, slotHeight * .95f);
+			button.add(getScreenshot(slot)).size(slotWidth * .95f, slotHeight * .95f);
 
-			try {
-				long l = Long.parseLong(slot);
+			SaveGameIndex.Entry entry = index.get(slot);
 
-				Date d = new Date(l);
-				textLabel = (new SimpleDateFormat()).format(d);
-			} catch (Exception e) {
-				textLabel = slot;
+			if (entry != null) {
+				textLabel = (new SimpleDateFormat()).format(new Date(entry.timestamp)) + "\n" + getEntryInfo(entry);
+			} else {
+				// saved games not in the index, the slot name is the save time
+				try {
+					long l = Long.parseLong(slot);
+
+					Date d = new Date(l);
+					textLabel = (new SimpleDateFormat()).format(d);
+				} catch (Exception e) {
+					textLabel = slot;
+				}
 			}
 
 			button.addListener(loadClickListener);
@@ -320,22 +401,91 @@ public class LoadSaveScreen extends ScreenAdapter implements BladeScreen {
 		return al;
 	}
 
+	/**
+	 * @return An empty image. The screenshot is loaded when the slot is
+	 *         visible.
+	 */
 	private Image getScreenshot(String slot) {
-		String filename = slot + World.GAMESTATE_EXT + ".png";
+		SlotThumb t = new SlotThumb();
+		t.slot = slot;
+		t.image = new Image();
+		t.image.setScaling(Scaling.fit);
+
+		thumbs.add(t);
+
+		return t.image;
+	}
+
+	private void updateThumbs() {
+		int uploads = 0;
+
+		for (SlotThumb t : thumbs) {
+			if (t.pending != null && t.pending.isDone()) {
+				try {
+					t.pixmap = t.pending.get();
+				} catch (Exception e) {
+					EngineLogger.error("Error loading screenshot: " + t.slot);
+					t.error = true;
+				}
+
+				t.pending = null;
+			}
+
+			if (isVisible(t.image)) {
+				if (t.texture == null && t.pixmap == null && t.pending == null && !t.error)
+					t.pending = thumbLoader.submit(new ScreenshotDecodeTask(t.slot));
+
+				if (t.pixmap != null && uploads < MAX_THUMB_UPLOADS_PER_FRAME) {
+					t.texture = new Texture(t.pixmap);
+					t.pixmap.dispose();
+					t.pixmap = null;
+					t.image.setDrawable(new TextureRegionDrawable(new TextureRegion(t.texture)));
+					uploads++;
+				}
+			} else {
+				if (t.texture != null) {
+					t.image.setDrawable(null);
+					t.texture.dispose();
+					t.texture = null;
+				}
+
+				if (t.pixmap != null) {
+					t.pixmap.dispose();
+					t.pixmap = null;
+				}
+			}
+		}
+	}
+
+	private boolean isVisible(Actor a) {
+		if (a.getStage() == null)
+			return false;
 
-		FileHandle savedFile = null;
+		a.localToAscendantCoordinates(scroll, tmpPos.set(0, 0));
 
-		if (EngineAssetManager.getInstance().getUserFile(filename).exists())
-			savedFile = EngineAssetManager.getInstance().getUserFile(filename);
-		else
-			savedFile = EngineAssetManager.getInstance().getAsset("tests/" + filename);
+		return tmpPos.x + a.getWidth() > 0 && tmpPos.x < scroll.getWidth();
+	}
+
+	private static class ScreenshotDecodeTask implements AsyncTask<Pixmap> {
+		private final String slot;
 
-		Texture t = new Texture(savedFile);
+		ScreenshotDecodeTask(String slot) {
+			this.slot = slot;
+		}
 
-		// add to the list for proper dispose when hide the screen
-		textureList.add(t);
+		@Override
+		public Pixmap call() throws Exception {
+			String filename = slot + World.GAMESTATE_EXT + ".png";
 
-		return new Image(t);
+			FileHandle savedFile = null;
+
+			if (EngineAssetManager.getInstance().getUserFile(filename).exists())
+				savedFile = EngineAssetManager.getInstance().getUserFile(filename);
+			else
+				savedFile = EngineAssetManager.getInstance().getAsset("tests/" + filename);
+
+			return new Pixmap(savedFile);
+		}
 	}
 
 	private ClickListener loadClickListener = new ClickListener() {
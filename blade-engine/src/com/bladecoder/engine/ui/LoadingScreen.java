@@ -38,6 +38,7 @@ public class LoadingScreen extends ScreenAdapter implements BladeScreen {
 	private float squareWidth = 30f;
 	private float squareHeight = 30f;
 	private float margin = 10f;
+	private float progressHeight = 4f;
 
 	private float initTime = 0;
 
@@ -50,7 +51,7 @@ public class LoadingScreen extends ScreenAdapter implements BladeScreen {
 	@Override
 	public void render(float delta) {
 
-		if (!EngineAssetManager.getInstance().isLoading()) {
+		if (EngineAssetManager.getInstance().updateFrame()) {
 			ui.setCurrentScreen(Screens.SCENE_SCREEN);
 			return;
 		}
@@ -75,6 +76,15 @@ public class LoadingScreen extends ScreenAdapter implements BladeScreen {
 			final Color color = i == pos ? Color.WHITE : Color.GRAY;
 			RectangleRenderer.draw(ui.getBatch(), x + i * (squareWidth + margin), y, squareWidth, squareHeight, color);
 		}
+
+		// PROGRESS BAR
+		final float width = squareWidth * numSquares + margin * (numSquares - 1);
+		final float py = y - margin - progressHeight;
+
+		RectangleRenderer.draw(ui.getBatch(), x, py, width, progressHeight, Color.DARK_GRAY);
+		RectangleRenderer.draw(ui.getBatch(), x, py, width * EngineAssetManager.getInstance().getProgress(),
+				progressHeight, Color.WHITE);
+
 		batch.end();
 	}
 
@@ -28,8 +28,11 @@ import com.bladecoder.engine.assets.EngineAssetManager;
 import com.bladecoder.engine.model.Dialog;
 import com.bladecoder.engine.model.InteractiveActor;
 import com.bladecoder.engine.model.Scene;
+import com.bladecoder.engine.model.StateDump;
 import com.bladecoder.engine.model.World;
+import com.bladecoder.engine.util.Config;
 import com.bladecoder.engine.util.EngineLogger;
+import com.bladecoder.engine.util.FileUtils;
 import com.bladecoder.engine.util.RectangleRenderer;
 
 /**
@@ -62,7 +65,7 @@ public class Recorder {
 			time += delta;
 
 			if (pos >= list.size()) {
-				setPlaying(false);
+				endPlaying();
 				return;
 			}
 
@@ -108,7 +111,7 @@ public class Recorder {
 				time = 0;
 				pos++;
 				if (pos >= list.size()) {
-					setPlaying(false);
+					endPlaying();
 				} else {
 					v = list.get(pos);
 				}
@@ -194,6 +197,25 @@ public class Recorder {
 		pos = 0;
 	}
 
+	/**
+	 * Stops playing and, if the 'state_dump' config property is set, dumps the
+	 * world state to that file of the user folder to compare unattended runs.
+	 */
+	private void endPlaying() {
+		setPlaying(false);
+
+		String dumpName = Config.getProperty(Config.STATE_DUMP_PROP, null);
+
+		if (dumpName != null) {
+			try {
+				StateDump.write(World.getInstance(), EngineAssetManager.getInstance().getUserFile(dumpName));
+				EngineLogger.debug("STATE DUMPED: " + dumpName);
+			} catch (Exception e) {
+				EngineLogger.error("ERROR DUMPING STATE", e);
+			}
+		}
+	}
+
 	public void draw(SpriteBatch batch) {
 		if (recording && ((int) time) % 2 == 0) {
 			// RectangleRenderer.draw(batch, 10,
@@ -253,7 +275,7 @@ public class Recorder {
 				EngineLogger.debug("LOADING RECORD: no saved file exists");
 
 			// LOAD VERBS
-			list = new Json().fromJson(ArrayList.class, TimeVerb.class, verbsFile.reader("UTF-8"));
+			list = new Json().fromJson(ArrayList.class, TimeVerb.class, FileUtils.reader(verbsFile, "UTF-8"));
 		} else {
 			EngineLogger.error("LOADING RECORD: no record file exists");
 		}
@@ -266,7 +288,8 @@ public class Recorder {
 //		String s = json.prettyPrint(list);
 		String s = json.toJson(list, ArrayList.class, TimeVerb.class);
 
-		Writer w = EngineAssetManager.getInstance().getUserFile(fileName + RECORD_EXT).writer(false, "UTF-8");
+		Writer w = FileUtils.writer(EngineAssetManager.getInstance().getUserFile(fileName + RECORD_EXT),
+				Config.getProperty(Config.COMPRESS_GAMESTATE_PROP, true) && !EngineLogger.debugMode(), "UTF-8");
 
 		try {
 			w.write(s);
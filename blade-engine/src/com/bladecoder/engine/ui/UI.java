@@ -23,6 +23,8 @@ import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.reflect.ClassReflection;
 import com.bladecoder.engine.assets.EngineAssetManager;
+import com.bladecoder.engine.assets.EngineAssetManager.AssetClass;
+import com.bladecoder.engine.assets.FontManager;
 import com.bladecoder.engine.model.World;
 import com.bladecoder.engine.ui.defaults.DefaultSceneScreen;
 import com.bladecoder.engine.ui.retro.VerbUI;
@@ -171,7 +173,8 @@ public class UI {
 		skin = new BladeSkin(skinFile, atlas);
 		
 		if(!Config.getProperty(Config.CHARACTER_ICON_ATLAS, "").equals("")) {
-			EngineAssetManager.getInstance().loadAtlas(Config.getProperty(Config.CHARACTER_ICON_ATLAS, null));
+			EngineAssetManager.getInstance().loadAtlas(Config.getProperty(Config.CHARACTER_ICON_ATLAS, null),
+					AssetClass.UI);
 			EngineAssetManager.getInstance().finishLoading();
 		}
 	}
@@ -207,6 +210,9 @@ public class UI {
 		for(BladeScreen s:screens)
 			s.dispose();
 		
+		// saves the font glyph caches
+		FontManager.getInstance().dispose();
+		
 		EngineAssetManager.getInstance().dispose();
 	}
 	
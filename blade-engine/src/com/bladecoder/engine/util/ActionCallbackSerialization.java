@@ -15,6 +15,8 @@
  ******************************************************************************/
 package com.bladecoder.engine.util;
 
+import java.util.IdentityHashMap;
+
 import com.bladecoder.engine.actions.Action;
 import com.bladecoder.engine.actions.ActionCallback;
 import com.bladecoder.engine.ink.InkManager;
@@ -23,6 +25,7 @@ import com.bladecoder.engine.model.InteractiveActor;
 import com.bladecoder.engine.model.Scene;
 import com.bladecoder.engine.model.UIActors;
 import com.bladecoder.engine.model.Verb;
+import com.bladecoder.engine.model.VerbManager;
 import com.bladecoder.engine.model.World;
 
 /**
@@ -41,6 +44,11 @@ import com.bladecoder.engine.model.World;
  * default verbs. If actorId == current scene ID the ActionCallback is searched
  * in the current scene verbs.
  * 
+ * Verbs and actions are registered when the model is loaded. The registry maps
+ * every ActionCallback to its owner and its verb relative id, so the location
+ * String is built without traversing the world. Callbacks not registered (ie.
+ * created by the editor after loading) are searched in the world as before.
+ * 
  * @author rgarcia
  */
 public class ActionCallbackSerialization {
@@ -50,6 +58,125 @@ public class ActionCallbackSerialization {
 	private static final String UIACTORS_TAG = "UIACTORS";
 	private static final String DEFAULT_VERB_TAG = "DEFAULT_VERB";
 
+	/**
+	 * Location of a registered ActionCallback. The owner is the World (for
+	 * default verbs), a Scene or an InteractiveActor.
+	 */
+	private static final class CallbackId {
+		final Object owner;
+		final String verbId;
+
+		CallbackId(Object owner, String verbId) {
+			this.owner = owner;
+			this.verbId = verbId;
+		}
+	}
+
+	private static final IdentityHashMap<ActionCallback, CallbackId> registry = new IdentityHashMap<ActionCallback, CallbackId>();
+
+	/**
+	 * Registers all the verbs and actions of the VerbManager.
+	 * 
+	 * @param owner
+	 *            The World, a Scene or an InteractiveActor.
+	 * @param vm
+	 *            The owner VerbManager.
+	 */
+	public static void register(Object owner, VerbManager vm) {
+		for (Verb v : vm.getVerbs().values()) {
+			String id = v.getHashKey();
+
+			registry.put(v, new CallbackId(owner, id));
+
+			int pos = 0;
+
+			for (Action a : v.getActions()) {
+				if (a instanceof ActionCallback) {
+					StringBuilder stringBuilder = new StringBuilder(id);
+					stringBuilder.append(SEPARATION_SYMBOL).append(pos);
+
+					registry.put((ActionCallback) a, new CallbackId(owner, stringBuilder.toString()));
+				}
+
+				pos++;
+			}
+		}
+	}
+
+	/**
+	 * Removes all the registered callbacks. Must be called when the chapter
+	 * model is discarded.
+	 */
+	public static void clearRegistry() {
+		registry.clear();
+	}
+
+	/**
+	 * Returns the owner of a registered callback: the World, a Scene or an
+	 * InteractiveActor. null if the callback is not registered.
+	 */
+	public static Object getOwner(ActionCallback cb) {
+		CallbackId cid = registry.get(cb);
+
+		return cid == null ? null : cid.owner;
+	}
+
+	/**
+	 * Returns the id of the owner of a registered callback: DEFAULT_VERB, the
+	 * scene id or the actor id. null if the callback is not registered.
+	 */
+	public static String getOwnerId(ActionCallback cb) {
+		CallbackId cid = registry.get(cb);
+
+		if (cid == null)
+			return null;
+
+		if (cid.owner instanceof Scene)
+			return ((Scene) cid.owner).getId();
+		else if (cid.owner instanceof InteractiveActor)
+			return ((InteractiveActor) cid.owner).getId();
+
+		return DEFAULT_VERB_TAG;
+	}
+
+	/**
+	 * Builds the location String for a registered callback. The owner must be
+	 * reachable from the current scene, the same places where
+	 * {@link #find(String)} will search it.
+	 * 
+	 * @return The location string, null if the owner is not reachable.
+	 */
+	private static String find(CallbackId cid) {
+		World w = World.getInstance();
+		StringBuilder stringBuilder;
+
+		if (cid.owner == w) {
+			stringBuilder = new StringBuilder(DEFAULT_VERB_TAG);
+		} else if (cid.owner instanceof Scene) {
+			Scene s = (Scene) cid.owner;
+
+			if (s != w.getCurrentScene())
+				return null;
+
+			stringBuilder = new StringBuilder(s.getId());
+		} else {
+			InteractiveActor a = (InteractiveActor) cid.owner;
+
+			if (w.getUIActors() != null && w.getUIActors().get(a.getId()) == a) {
+				stringBuilder = new StringBuilder(UIACTORS_TAG);
+				stringBuilder.append(SEPARATION_SYMBOL).append(a.getId());
+			} else if (w.getCurrentScene() != null && w.getCurrentScene().getActor(a.getId(), true) == a) {
+				stringBuilder = new StringBuilder(a.getId());
+			} else {
+				return null;
+			}
+		}
+
+		stringBuilder.append(SEPARATION_SYMBOL).append(cid.verbId);
+
+		return stringBuilder.toString();
+	}
+
 	private static String find(ActionCallback cb, Verb v) {
 		String id = v.getHashKey();
 
@@ -166,7 +293,17 @@ public class ActionCallbackSerialization {
 
 		if (cb == null)
 			return null;
-		
+
+		// registered verbs and actions. If the owner is not reachable from
+		// the current scene, the full search below is done.
+		CallbackId cid = registry.get(cb);
+
+		if (cid != null) {
+			id = find(cid);
+
+			if (id != null)
+				return id;
+		}
 
 		// search in UIActors
 		id = find(cb, World.getInstance().getUIActors());
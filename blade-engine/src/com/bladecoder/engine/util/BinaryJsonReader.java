@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonValue.ValueType;
+import com.badlogic.gdx.utils.SerializationException;
+
+/**
+ * Reads the binary format generated by BinaryJsonWriter and builds the same
+ * JsonValue tree that JsonReader builds from the text version, so the
+ * Json.Serializable classes read it without changes.
+ */
+public class BinaryJsonReader {
+	private DataInputStream in;
+	private final ArrayList<String> strings = new ArrayList<String>();
+
+	/**
+	 * @return true if the file, compressed or not, starts with the binary
+	 *         format MAGIC.
+	 */
+	public static boolean isBinary(FileHandle file) {
+		InputStream is = FileUtils.read(file);
+
+		try {
+			return isBinary(is);
+		} finally {
+			try {
+				is.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Checks the MAGIC without consuming the stream. The stream must support
+	 * mark/reset.
+	 */
+	public static boolean isBinary(InputStream is) {
+		byte[] magic = BinaryJsonWriter.MAGIC;
+
+		try {
+			is.mark(magic.length);
+
+			try {
+				for (int i = 0; i < magic.length; i++) {
+					if (is.read() != magic[i])
+						return false;
+				}
+
+				return true;
+			} finally {
+				is.reset();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public JsonValue parse(FileHandle file) {
+		return parse(FileUtils.read(file));
+	}
+
+	public JsonValue parse(InputStream is) {
+		in = new DataInputStream(new BufferedInputStream(is));
+		strings.clear();
+
+		try {
+			byte[] magic = BinaryJsonWriter.MAGIC;
+
+			for (int i = 0; i < magic.length; i++) {
+				if (in.readByte() != magic[i])
+					throw new SerializationException("Not a binary json stream.");
+			}
+
+			int version = readVarInt();
+
+			if (version > BinaryJsonWriter.VERSION)
+				throw new SerializationException("Unsupported binary json version: " + version);
+
+			JsonValue root = readValue(in.readUnsignedByte());
+
+			// checks the CRC of compressed files
+			FileUtils.readToEnd(in);
+
+			return root;
+		} catch (IOException e) {
+			throw new SerializationException("Error reading binary json.", e);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+			}
+
+			in = null;
+		}
+	}
+
+	private JsonValue readValue(int tag) throws IOException {
+		switch (tag) {
+		case BinaryJsonWriter.OBJECT:
+			return readChildren(new JsonValue(ValueType.object), true);
+		case BinaryJsonWriter.ARRAY:
+			return readChildren(new JsonValue(ValueType.array), false);
+		case BinaryJsonWriter.NULL:
+			return new JsonValue(ValueType.nullValue);
+		case BinaryJsonWriter.TRUE:
+			return new JsonValue(true);
+		case BinaryJsonWriter.FALSE:
+			return new JsonValue(false);
+		case BinaryJsonWriter.LONG:
+			return new JsonValue(readVarLong());
+		case BinaryJsonWriter.FLOAT:
+			return new JsonValue((double) in.readFloat());
+		case BinaryJsonWriter.DOUBLE:
+			return new JsonValue(in.readDouble());
+		case BinaryJsonWriter.STRING:
+			return new JsonValue(readString());
+		default:
+			throw new SerializationException("Invalid binary json tag: " + tag);
+		}
+	}
+
+	private JsonValue readChildren(JsonValue parent, boolean named) throws IOException {
+		JsonValue last = null;
+		int tag;
+
+		while ((tag = in.readUnsignedByte()) != BinaryJsonWriter.END) {
+			String name = named ? readString() : null;
+			JsonValue child = readValue(tag);
+
+			child.name = name;
+			child.parent = parent;
+
+			if (last == null) {
+				parent.child = child;
+			} else {
+				last.next = child;
+				child.prev = last;
+			}
+
+			last = child;
+			parent.size++;
+		}
+
+		return parent;
+	}
+
+	private String readString() throws IOException {
+		int idx = readVarInt();
+
+		if (idx > 0)
+			return strings.get(idx - 1);
+
+		byte[] bytes = new byte[readVarInt()];
+		in.readFully(bytes);
+
+		String s = new String(bytes, "UTF-8");
+		strings.add(s);
+
+		return s;
+	}
+
+	private int readVarInt() throws IOException {
+		int v = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = in.readUnsignedByte();
+			v |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		return v;
+	}
+
+	private long readVarLong() throws IOException {
+		long v = 0;
+		int shift = 0;
+		int b;
+
+		do {
+			b = in.readUnsignedByte();
+			v |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+
+		// zigzag
+		return (v >>> 1) ^ -(v & 1);
+	}
+}
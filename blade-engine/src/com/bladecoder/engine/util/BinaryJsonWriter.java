@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.HashMap;
+
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+
+/**
+ * JsonWriter that streams a compact binary representation instead of text.
+ *
+ * It can be set as the writer of a libGDX Json object, so every
+ * Json.Serializable class is written in binary without changes.
+ *
+ * Format: the header (MAGIC + VERSION) and one tagged value. Object entries
+ * are 'tag name payload' and array entries are 'tag payload'. Objects and
+ * arrays are terminated with the END tag. Integers are zigzag varints and
+ * strings (names and values) use a string table: the first occurrence is
+ * written inline and the next ones as a varint reference.
+ *
+ * Use BinaryJsonReader to read it.
+ */
+public class BinaryJsonWriter extends JsonWriter {
+	public static final byte[] MAGIC = { 0, 'B', 'J', 'S' };
+	public static final int VERSION = 1;
+
+	static final int END = 0;
+	static final int OBJECT = 1;
+	static final int ARRAY = 2;
+	static final int NULL = 3;
+	static final int TRUE = 4;
+	static final int FALSE = 5;
+	static final int LONG = 6;
+	static final int FLOAT = 7;
+	static final int DOUBLE = 8;
+	static final int STRING = 9;
+
+	private final DataOutputStream out;
+	private final HashMap<String, Integer> strings = new HashMap<String, Integer>();
+
+	/** true for objects, false for arrays */
+	private final BooleanArray stack = new BooleanArray();
+
+	private String name;
+
+	private boolean narrowDoubles = false;
+
+	public BinaryJsonWriter(OutputStream os) throws IOException {
+		super(new StringWriter(0));
+
+		out = new DataOutputStream(new BufferedOutputStream(os));
+		out.write(MAGIC);
+		writeVarInt(VERSION);
+	}
+
+	@Override
+	public JsonWriter name(String name) throws IOException {
+		if (stack.size == 0 || !stack.peek())
+			throw new IllegalStateException("Current item must be an object.");
+
+		this.name = name;
+
+		return this;
+	}
+
+	private void writeTag(int tag) throws IOException {
+		out.writeByte(tag);
+
+		if (stack.size > 0 && stack.peek()) {
+			if (name == null)
+				throw new IllegalStateException("Name must be set.");
+
+			writeString(name);
+			name = null;
+		}
+	}
+
+	@Override
+	public JsonWriter object() throws IOException {
+		writeTag(OBJECT);
+		stack.add(true);
+
+		return this;
+	}
+
+	@Override
+	public JsonWriter array() throws IOException {
+		writeTag(ARRAY);
+		stack.add(false);
+
+		return this;
+	}
+
+	@Override
+	public JsonWriter object(String name) throws IOException {
+		return name(name).object();
+	}
+
+	@Override
+	public JsonWriter array(String name) throws IOException {
+		return name(name).array();
+	}
+
+	@Override
+	public JsonWriter value(Object value) throws IOException {
+		if (value == null) {
+			writeTag(NULL);
+		} else if (value instanceof Boolean) {
+			writeTag((Boolean) value ? TRUE : FALSE);
+		} else if (value instanceof Float) {
+			writeTag(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Double) {
+			writeTag(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Number) {
+			writeTag(LONG);
+			writeVarLong(((Number) value).longValue());
+		} else {
+			writeTag(STRING);
+			writeString(value.toString());
+		}
+
+		return this;
+	}
+
+	@Override
+	public JsonWriter set(String name, Object value) throws IOException {
+		return name(name).value(value);
+	}
+
+	public JsonWriter json(String json) throws IOException {
+		write(new JsonReader().parse(json));
+
+		return this;
+	}
+
+	public JsonWriter json(String name, String json) throws IOException {
+		return name(name).json(json);
+	}
+
+	/**
+	 * When writing a JsonValue tree, the doubles that are exactly representable
+	 * as float are written as FLOAT. The JsonReader reads every number with
+	 * decimals as double, so it halves the size of most model numbers.
+	 */
+	public void setNarrowDoubles(boolean narrowDoubles) {
+		this.narrowDoubles = narrowDoubles;
+	}
+
+	/**
+	 * Writes a JsonValue tree. Used to convert JSON files to binary.
+	 */
+	public void write(JsonValue v) throws IOException {
+		if (stack.size > 0 && stack.peek())
+			name(v.name);
+
+		switch (v.type()) {
+		case object:
+			object();
+
+			for (JsonValue c = v.child; c != null; c = c.next)
+				write(c);
+
+			pop();
+			break;
+		case array:
+			array();
+
+			for (JsonValue c = v.child; c != null; c = c.next)
+				write(c);
+
+			pop();
+			break;
+		case stringValue:
+			value(v.asString());
+			break;
+		case doubleValue:
+			double d = v.asDouble();
+
+			if (narrowDoubles && (float) d == d)
+				value((float) d);
+			else
+				value(d);
+			break;
+		case longValue:
+			value(v.asLong());
+			break;
+		case booleanValue:
+			value(v.asBoolean());
+			break;
+		default:
+			value(null);
+			break;
+		}
+	}
+
+	@Override
+	public JsonWriter pop() throws IOException {
+		if (name != null)
+			throw new IllegalStateException("Expected an object, array, or value since a name was set.");
+
+		stack.pop();
+		out.writeByte(END);
+
+		return this;
+	}
+
+	private void writeString(String s) throws IOException {
+		Integer idx = strings.get(s);
+
+		if (idx != null) {
+			writeVarInt(idx + 1);
+		} else {
+			byte[] bytes = s.getBytes("UTF-8");
+
+			writeVarInt(0);
+			writeVarInt(bytes.length);
+			out.write(bytes);
+
+			strings.put(s, strings.size());
+		}
+	}
+
+	private void writeVarInt(int v) throws IOException {
+		while ((v & ~0x7F) != 0) {
+			out.writeByte((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+
+		out.writeByte(v);
+	}
+
+	private void writeVarLong(long v) throws IOException {
+		// zigzag to encode small negative values in few bytes
+		v = (v << 1) ^ (v >> 63);
+
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) ((v & 0x7F) | 0x80));
+			v >>>= 7;
+		}
+
+		out.writeByte((int) v);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		throw new UnsupportedOperationException("Text can not be written in a binary stream.");
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		while (stack.size > 0)
+			pop();
+
+		out.close();
+	}
+}
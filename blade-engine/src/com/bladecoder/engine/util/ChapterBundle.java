@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.SerializationException;
+
+/**
+ * Pre-baked chapter model generated when packaging the game.
+ *
+ * The scenes are stored as independent binary JSON blobs (see
+ * BinaryJsonWriter), so the engine does not tokenize JSON text when loading
+ * the chapter and every scene can be deserialized lazily from its blob. The
+ * binary format interns the strings (ids, action class names...) and the
+ * numbers are stored as float when there is no precision loss.
+ *
+ * Format: MAGIC + VERSION, the SCENE records (id and blob) and the ROOT record
+ * with the rest of the chapter members. The file is compressed.
+ *
+ * Only the parsing is baked, the blobs are deserialized as the JSON model:
+ * the polygons and walk zones are read from their vertex arrays and the nav
+ * graphs are built at load time, and the action classes are resolved by name
+ * (cached in ActionFactory).
+ *
+ * The editor generates the bundles in the package build folder, not in the
+ * project, and the build scripts leave the replaced .chapter.json files out
+ * of the package.
+ */
+public class ChapterBundle {
+	public static final byte[] MAGIC = { 0, 'B', 'C', 'H' };
+	public static final int VERSION = 1;
+
+	private static final int SCENE = 1;
+	private static final int ROOT = 2;
+
+	public interface SceneListener {
+		void scene(String id, byte[] data);
+	}
+
+	/**
+	 * Converts a .chapter.json file to the bundle format.
+	 */
+	public static void bake(FileHandle chapter, FileHandle dest) throws IOException {
+		final DataOutputStream out = new DataOutputStream(FileUtils.write(dest, true));
+
+		try {
+			out.write(MAGIC);
+			out.writeInt(VERSION);
+
+			JsonValue root = new StreamingJsonReader().parse(FileUtils.reader(chapter, "UTF-8"), "scenes",
+					new StreamingJsonReader.MemberListener() {
+						@Override
+						public void member(String name, String json) {
+							try {
+								out.writeByte(SCENE);
+								out.writeUTF(name);
+								writeBlob(out, new JsonReader().parse(json));
+							} catch (IOException e) {
+								throw new SerializationException(e);
+							}
+						}
+					});
+
+			out.writeByte(ROOT);
+			writeBlob(out, root);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void writeBlob(DataOutputStream out, JsonValue v) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryJsonWriter w = new BinaryJsonWriter(bytes);
+		w.setNarrowDoubles(true);
+		w.write(v);
+		w.close();
+
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+	}
+
+	/**
+	 * Checks the MAGIC without consuming the stream. The stream must support
+	 * mark/reset.
+	 */
+	public static boolean isBundle(InputStream is) {
+		try {
+			is.mark(MAGIC.length);
+
+			try {
+				for (int i = 0; i < MAGIC.length; i++) {
+					if (is.read() != MAGIC[i])
+						return false;
+				}
+
+				return true;
+			} finally {
+				is.reset();
+			}
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads the bundle. The scene blobs are sent to the listener to be parsed
+	 * with BinaryJsonReader when needed.
+	 * 
+	 * @param is
+	 *            The stream is closed after reading.
+	 * @return The root chapter members without the scenes.
+	 */
+	public static JsonValue read(InputStream is, SceneListener listener) throws IOException {
+		DataInputStream in = new DataInputStream(is);
+
+		try {
+			for (int i = 0; i < MAGIC.length; i++) {
+				if (in.readByte() != MAGIC[i])
+					throw new SerializationException("Not a chapter bundle.");
+			}
+
+			int version = in.readInt();
+
+			if (version > VERSION)
+				throw new SerializationException("Unsupported chapter bundle version: " + version);
+
+			int tag;
+
+			while ((tag = in.readUnsignedByte()) == SCENE) {
+				String id = in.readUTF();
+				listener.scene(id, readBlob(in));
+			}
+
+			if (tag != ROOT)
+				throw new SerializationException("Invalid chapter bundle record: " + tag);
+
+			JsonValue root = new BinaryJsonReader().parse(new ByteArrayInputStream(readBlob(in)));
+
+			// checks the CRC
+			FileUtils.readToEnd(in);
+
+			return root;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static byte[] readBlob(DataInputStream in) throws IOException {
+		byte[] data = new byte[in.readInt()];
+		in.readFully(data);
+
+		return data;
+	}
+}
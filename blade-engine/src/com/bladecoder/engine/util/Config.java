@@ -38,6 +38,23 @@ public class Config {
 	public static final String UI_MODE = "ui_mode";
 	public static final String FAST_LEAVE = "fast_leave";
 	public static final String AUTO_HIDE_TEXTS = "auto_hide_texts";
+	public static final String CALLBACKS_PER_FRAME_PROP = "callbacks_per_frame";
+	public static final String BINARY_GAMESTATE_PROP = "binary_gamestate";
+	public static final String DELTA_GAMESTATE_PROP = "delta_gamestate";
+	public static final String COMPRESS_GAMESTATE_PROP = "compress_gamestate";
+	public static final String COMPRESS_MODEL_PROP = "compress_model";
+	public static final String LAZY_SCENES_PROP = "lazy_scenes";
+	public static final String AUTOSAVE_SLOTS_PROP = "autosave_slots";
+	public static final String AUTOSAVE_INTERVAL_PROP = "autosave_interval";
+	public static final String ASSET_MEMORY_BUDGET_PROP = "asset_memory_budget";
+	public static final String LAZY_ANIMATIONS_PROP = "lazy_animations";
+	public static final String TEXTURE_UPLOAD_PER_FRAME_PROP = "texture_upload_per_frame";
+	public static final String MMAP_MIN_SIZE_PROP = "mmap_min_size";
+	public static final String ASSET_CLASS_SCALES_PROP = "asset_class_scales";
+	public static final String SOUND_MAX_INSTANCES_PROP = "sound_max_instances";
+	public static final String VOICE_PREFETCH_PROP = "voice_prefetch";
+	public static final String FONT_CACHE_PROP = "font_cache";
+	public static final String STATE_DUMP_PROP = "state_dump";
 
 	public static final String PROPERTIES_FILENAME = "BladeEngine.properties";
 
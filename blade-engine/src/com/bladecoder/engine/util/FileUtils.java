@@ -1,10 +1,27 @@
 package com.bladecoder.engine.util;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
 import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.bladecoder.engine.assets.ArchiveFileHandle;
 
 public class FileUtils {
+	private static final int BUFFER_SIZE = 8192;
+
 	/**
 	 * For android, the exists method is very slow, this is a fast
 	 * implementation
@@ -13,7 +30,7 @@ public class FileUtils {
 	 */
 	public static boolean exists(FileHandle fh) {
 
-		if (Gdx.app.getType() == ApplicationType.Android) {
+		if (Gdx.app.getType() == ApplicationType.Android && !(fh instanceof ArchiveFileHandle)) {
 			try {
 				fh.read().close();
 				return true;
@@ -24,4 +41,110 @@ public class FileUtils {
 
 		return fh.exists();
 	}
+
+	/**
+	 * Opens the file, decompressing it if it was written compressed. The
+	 * compressed files are GZIP (DEFLATE + CRC32). The CRC is checked when the
+	 * end of the stream is read, so truncated or corrupted files throw an
+	 * IOException if the stream is read to the end.
+	 */
+	public static InputStream read(FileHandle fh) {
+		InputStream is = fh.read();
+
+		// memory mapped files are not buffered again
+		if (!is.markSupported())
+			is = new BufferedInputStream(is, BUFFER_SIZE);
+
+		try {
+			is.mark(2);
+			int b1 = is.read();
+			int b2 = is.read();
+			is.reset();
+
+			if (b1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && b2 == (GZIPInputStream.GZIP_MAGIC >> 8))
+				return new BufferedInputStream(new GZIPInputStream(is, BUFFER_SIZE), BUFFER_SIZE);
+		} catch (IOException e) {
+			try {
+				is.close();
+			} catch (IOException e1) {
+			}
+
+			throw new GdxRuntimeException("Error reading file: " + fh, e);
+		}
+
+		return is;
+	}
+
+	public static Reader reader(FileHandle fh, String charset) {
+		try {
+			return new InputStreamReader(read(fh), charset);
+		} catch (UnsupportedEncodingException e) {
+			throw new GdxRuntimeException("Error reading file: " + fh, e);
+		}
+	}
+
+	/**
+	 * @param compress
+	 *            Writes the file compressed in GZIP format.
+	 */
+	public static OutputStream write(FileHandle fh, boolean compress) {
+		OutputStream os = fh.write(false, BUFFER_SIZE);
+
+		if (!compress)
+			return os;
+
+		try {
+			return new GZIPOutputStream(os, BUFFER_SIZE);
+		} catch (IOException e) {
+			try {
+				os.close();
+			} catch (IOException e1) {
+			}
+
+			throw new GdxRuntimeException("Error writing file: " + fh, e);
+		}
+	}
+
+	/**
+	 * Replaces 'dest' with 'tmp' in a single rename, so 'dest' is never left
+	 * half written: after a crash it is the old or the new file. In Windows,
+	 * where the rename can not replace a file, 'dest' is deleted first.
+	 *
+	 * 'tmp' must be in the same folder than 'dest'. If the rename fails, 'tmp'
+	 * is deleted.
+	 */
+	public static void replace(FileHandle tmp, FileHandle dest) throws IOException {
+		File tmpFile = tmp.file();
+		File destFile = dest.file();
+
+		// POSIX rename replaces the destination atomically
+		if (tmpFile.renameTo(destFile))
+			return;
+
+		// File.renameTo fails in Windows if the destination exists
+		if (destFile.exists() && destFile.delete() && tmpFile.renameTo(destFile))
+			return;
+
+		tmp.delete();
+		throw new IOException("Error replacing file: " + dest);
+	}
+
+	public static Writer writer(FileHandle fh, boolean compress, String charset) {
+		try {
+			return new OutputStreamWriter(write(fh, compress), charset);
+		} catch (UnsupportedEncodingException e) {
+			throw new GdxRuntimeException("Error writing file: " + fh, e);
+		}
+	}
+
+	/**
+	 * Reads the stream until the end. For compressed files, it checks the CRC
+	 * when the content has been parsed without reading the full stream.
+	 */
+	public static void readToEnd(InputStream is) throws IOException {
+		byte[] buf = new byte[256];
+
+		while (is.read(buf) != -1)
+			;
+	}
 }
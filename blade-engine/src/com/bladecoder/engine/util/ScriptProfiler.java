@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.bladecoder.engine.actions.Action;
+import com.bladecoder.engine.actions.ActionCallback;
+import com.bladecoder.engine.model.Verb;
+
+/**
+ * Collects execution counts and times of verbs, ink steps and actions, and the
+ * latency between adding a cb to the ActionCallbackQueue and its resume.
+ *
+ * When disabled, every hook returns after checking a static boolean, so the
+ * profiler can stay in production builds.
+ */
+public class ScriptProfiler {
+	public static final String INK_KEY = "INK_MANAGER";
+
+	public static class Stats {
+		private String name;
+		private int count;
+		private int steps;
+		private long time;
+		private long maxTime;
+
+		void add(long t) {
+			steps++;
+			time += t;
+
+			if (t > maxTime)
+				maxTime = t;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Number of invocations.
+		 */
+		public int getCount() {
+			return count;
+		}
+
+		/**
+		 * @return Number of measured executions. For verbs, every step after
+		 *         a resume is measured separately.
+		 */
+		public int getSteps() {
+			return steps;
+		}
+
+		/**
+		 * @return Cumulative time in ns.
+		 */
+		public long getTime() {
+			return time;
+		}
+
+		/**
+		 * @return Max. time of one execution in ns.
+		 */
+		public long getMaxTime() {
+			return maxTime;
+		}
+	}
+
+	private static boolean enabled = false;
+
+	/** Verb stats by verb location (owner#verb) */
+	private static final HashMap<String, Stats> verbs = new HashMap<String, Stats>();
+	private static final HashMap<Class<?>, Stats> actions = new HashMap<Class<?>, Stats>();
+
+	private static final IdentityHashMap<ActionCallback, Long> pendingResumes = new IdentityHashMap<ActionCallback, Long>();
+	private static final Stats resumeLatency = new Stats();
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean e) {
+		enabled = e;
+
+		if (!e)
+			pendingResumes.clear();
+	}
+
+	public static void reset() {
+		verbs.clear();
+		actions.clear();
+		pendingResumes.clear();
+
+		resumeLatency.count = 0;
+		resumeLatency.steps = 0;
+		resumeLatency.time = 0;
+		resumeLatency.maxTime = 0;
+	}
+
+	private static Stats getVerbStats(Object v) {
+		String key = getVerbKey(v);
+		Stats s = verbs.get(key);
+
+		if (s == null) {
+			s = new Stats();
+			s.name = key;
+			verbs.put(key, s);
+		}
+
+		return s;
+	}
+
+	/**
+	 * The stats are keyed by the verb location so the verbs of reloaded scenes
+	 * are accumulated in the same stats and the old objects are not retained.
+	 */
+	private static String getVerbKey(Object v) {
+		if (!(v instanceof Verb))
+			return INK_KEY;
+
+		Verb verb = (Verb) v;
+		String owner = ActionCallbackSerialization.getOwnerId(verb);
+
+		return owner == null ? verb.getHashKey() : owner + "#" + verb.getHashKey();
+	}
+
+	/**
+	 * Called when a verb or the ink manager starts running.
+	 *
+	 * @param v
+	 *            The Verb or the InkManager.
+	 */
+	public static void verbRun(Object v) {
+		if (!enabled)
+			return;
+
+		getVerbStats(v).count++;
+	}
+
+	/**
+	 * Adds the time of a verb step (from run or resume until it stops or
+	 * finishes).
+	 */
+	public static void verbStep(Object v, long ns) {
+		if (!enabled)
+			return;
+
+		getVerbStats(v).add(ns);
+	}
+
+	public static void actionRun(Action a, long ns) {
+		if (!enabled)
+			return;
+
+		Stats s = actions.get(a.getClass());
+
+		if (s == null) {
+			s = new Stats();
+			s.name = a.getClass().getSimpleName();
+			actions.put(a.getClass(), s);
+		}
+
+		s.count++;
+		s.add(ns);
+	}
+
+	public static void callbackAdded(ActionCallback cb) {
+		if (!enabled)
+			return;
+
+		pendingResumes.put(cb, System.nanoTime());
+	}
+
+	public static void callbackResumed(ActionCallback cb) {
+		if (!enabled)
+			return;
+
+		Long t = pendingResumes.remove(cb);
+
+		if (t != null) {
+			resumeLatency.count++;
+			resumeLatency.add(System.nanoTime() - t);
+		}
+	}
+
+	/**
+	 * @return Verb stats sorted by cumulative time.
+	 */
+	public static List<Stats> getVerbStats() {
+		ArrayList<Stats> l = new ArrayList<Stats>(verbs.values());
+
+		sort(l);
+
+		return l;
+	}
+
+	/**
+	 * @return Action stats sorted by cumulative time.
+	 */
+	public static List<Stats> getActionStats() {
+		ArrayList<Stats> l = new ArrayList<Stats>(actions.values());
+
+		sort(l);
+
+		return l;
+	}
+
+	public static Stats getResumeLatency() {
+		return resumeLatency;
+	}
+
+	private static void sort(List<Stats> l) {
+		Collections.sort(l, new Comparator<Stats>() {
+			@Override
+			public int compare(Stats o1, Stats o2) {
+				return Long.compare(o2.time, o1.time);
+			}
+		});
+	}
+
+	/**
+	 * Human readable summary with the 'max' most expensive verbs and actions.
+	 */
+	public static String getReport(int max) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("VERBS (count/steps/total ms/max ms)\n");
+		appendReport(sb, getVerbStats(), max);
+		sb.append("ACTIONS (count/total ms/max ms)\n");
+		appendReport(sb, getActionStats(), max);
+		sb.append("RESUME LATENCY: ").append(resumeLatency.count).append(" cbs, avg ")
+				.append(toMs(resumeLatency.count == 0 ? 0 : resumeLatency.time / resumeLatency.count))
+				.append(" ms, max ").append(toMs(resumeLatency.maxTime)).append(" ms\n");
+
+		return sb.toString();
+	}
+
+	private static void appendReport(StringBuilder sb, List<Stats> l, int max) {
+		for (int i = 0; i < l.size() && i < max; i++) {
+			Stats s = l.get(i);
+
+			sb.append("  ").append(s.name).append(": ").append(s.count);
+
+			if (s.count != s.steps)
+				sb.append('/').append(s.steps);
+
+			sb.append('/').append(toMs(s.time)).append('/').append(toMs(s.maxTime)).append('\n');
+		}
+	}
+
+	private static String toMs(long ns) {
+		return String.format(Locale.ENGLISH, "%.3f", ns / 1000000.0);
+	}
+
+	public static void exportCSV(FileHandle file) throws IOException {
+		Writer w = file.writer(false, "UTF-8");
+
+		try {
+			w.write("type,name,count,steps,total_ns,max_ns\n");
+
+			for (Stats s : getVerbStats())
+				writeCSV(w, "verb", s);
+
+			for (Stats s : getActionStats())
+				writeCSV(w, "action", s);
+
+			resumeLatency.name = "resume";
+			writeCSV(w, "latency", resumeLatency);
+		} finally {
+			w.close();
+		}
+	}
+
+	private static void writeCSV(Writer w, String type, Stats s) throws IOException {
+		w.write(type + ",\"" + s.name.replace("\"", "\"\"") + "\"," + s.count + "," + s.steps + "," + s.time + ","
+				+ s.maxTime + "\n");
+	}
+
+	public static void exportJSON(FileHandle file) throws IOException {
+		Writer w = file.writer(false, "UTF-8");
+
+		try {
+			w.write("{\n\"verbs\": [");
+			writeJSON(w, getVerbStats());
+			w.write("],\n\"actions\": [");
+			writeJSON(w, getActionStats());
+			w.write("],\n\"resumeLatency\": ");
+			resumeLatency.name = "resume";
+			writeJSON(w, resumeLatency);
+			w.write("\n}\n");
+		} finally {
+			w.close();
+		}
+	}
+
+	private static void writeJSON(Writer w, List<Stats> l) throws IOException {
+		for (int i = 0; i < l.size(); i++) {
+			if (i > 0)
+				w.write(",");
+
+			w.write("\n  ");
+			writeJSON(w, l.get(i));
+		}
+	}
+
+	private static void writeJSON(Writer w, Stats s) throws IOException {
+		w.write("{\"name\": \"" + s.name.replace("\\", "\\\\").replace("\"", "\\\"") + "\", \"count\": " + s.count
+				+ ", \"steps\": " + s.steps + ", \"totalNs\": " + s.time + ", \"maxNs\": " + s.maxTime + "}");
+	}
+}
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.SerializationException;
+
+/**
+ * Reads a big JSON object without building the DOM of the full document.
+ *
+ * The members of one of the root members (p.e. the 'scenes' of a chapter)
+ * are sent one by one to a listener as JSON text, so only the DOM of one
+ * member is in memory at the same time. The rest of the root members are
+ * returned as a JsonValue.
+ *
+ * Supports the JSON generated by the libGDX JsonWriter with the json and
+ * javascript output types, the ones used by the engine: strings are quoted
+ * with '"' and the unquoted names are identifiers. The minimal output type is
+ * not supported, its unquoted names and strings can have spaces or start
+ * with '{' or '['.
+ */
+public class StreamingJsonReader {
+	public interface MemberListener {
+		void member(String name, String json);
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private int pos;
+	private int len;
+
+	private final StringBuilder value = new StringBuilder();
+
+	/**
+	 * @param reader
+	 *            The reader is closed after parsing.
+	 * @param streamedMember
+	 *            The root member whose members are sent to the listener.
+	 * @return The root object without the streamed member.
+	 */
+	public JsonValue parse(Reader reader, String streamedMember, MemberListener listener) throws IOException {
+		this.reader = reader;
+		pos = 0;
+		len = 0;
+
+		StringBuilder root = new StringBuilder("{");
+
+		try {
+			skipWhitespace();
+			expect('{');
+
+			while (true) {
+				skipSeparators();
+
+				if (peek() == '}')
+					break;
+
+				String name = readName();
+
+				if (name.equals(streamedMember) && peek() == '{') {
+					next();
+
+					while (true) {
+						skipSeparators();
+
+						if (peek() == '}') {
+							next();
+							break;
+						}
+
+						String memberName = readName();
+						listener.member(memberName, readValue());
+					}
+				} else {
+					root.append(quote(name)).append(':').append(readValue()).append(',');
+				}
+			}
+
+			// checks the CRC of compressed files
+			while (reader.read(buffer) != -1)
+				;
+		} finally {
+			reader.close();
+			this.reader = null;
+		}
+
+		root.append('}');
+
+		return new JsonReader().parse(root.toString());
+	}
+
+	private String readName() throws IOException {
+		String name;
+		char c = peek();
+
+		if (c == '"') {
+			value.setLength(0);
+			readString();
+			name = unquote(value);
+		} else {
+			StringBuilder sb = new StringBuilder();
+
+			while (!Character.isWhitespace(c = peek()) && c != ':')
+				sb.append(next());
+
+			name = sb.toString();
+		}
+
+		skipWhitespace();
+		expect(':');
+		skipWhitespace();
+
+		return name;
+	}
+
+	/**
+	 * Reads the JSON text of the next value.
+	 */
+	private String readValue() throws IOException {
+		value.setLength(0);
+
+		char c = peek();
+
+		if (c == '{' || c == '[') {
+			int depth = 0;
+
+			do {
+				c = peek();
+
+				if (c == '"') {
+					readString();
+					continue;
+				}
+
+				value.append(next());
+
+				if (c == '{' || c == '[')
+					depth++;
+				else if (c == '}' || c == ']')
+					depth--;
+			} while (depth > 0);
+		} else if (c == '"') {
+			readString();
+		} else {
+			// unquoted value
+			while (!isEndOfUnquoted(peek()))
+				value.append(next());
+		}
+
+		return value.toString();
+	}
+
+	private static boolean isEndOfUnquoted(char c) {
+		return c == ',' || c == '}' || c == ']' || c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Appends the quoted string, with the quotes, to the value.
+	 */
+	private void readString() throws IOException {
+		value.append(next());
+
+		char c;
+
+		while ((c = next()) != '"') {
+			value.append(c);
+
+			if (c == '\\')
+				value.append(next());
+		}
+
+		value.append('"');
+	}
+
+	private void skipWhitespace() throws IOException {
+		while (Character.isWhitespace(peek()))
+			next();
+	}
+
+	private void skipSeparators() throws IOException {
+		char c;
+
+		while (Character.isWhitespace(c = peek()) || c == ',')
+			next();
+	}
+
+	private void expect(char c) throws IOException {
+		char n = next();
+
+		if (n != c)
+			throw new SerializationException("Error parsing JSON, expected '" + c + "' found '" + n + "'");
+	}
+
+	private char peek() throws IOException {
+		if (pos == len) {
+			len = reader.read(buffer, 0, BUFFER_SIZE);
+			pos = 0;
+
+			if (len <= 0) {
+				len = 0;
+				throw new SerializationException("Error parsing JSON, unexpected end of file.");
+			}
+		}
+
+		return buffer[pos];
+	}
+
+	private char next() throws IOException {
+		char c = peek();
+		pos++;
+
+		return c;
+	}
+
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private static String unquote(CharSequence quoted) {
+		// let JsonReader unescape the string
+		return new JsonReader().parse("[" + quoted + "]").child.asString();
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.assets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.StreamUtils;
+
+public class AssetArchiveTest {
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private File assets;
+	private File dest;
+	private AssetArchive archive;
+
+	private final byte[] text = "{\"id\":\"scene1\",\"actors\":[]}\n".getBytes();
+	private final byte[] random = new byte[100000];
+	private final byte[] compressible = new byte[100000];
+
+	@Before
+	public void setUp() throws IOException {
+		new Random(1).nextBytes(random);
+		Arrays.fill(compressible, (byte) 'a');
+
+		assets = tmp.newFolder("assets");
+		dest = tmp.newFolder("dest");
+
+		write("BladeEngine.properties", text);
+		write("model/scene1.json", text);
+		write("model/big.json", compressible);
+		write("atlases/1/scene1.atlas", text);
+		write("atlases/1/scene1.png", random);
+		write("atlases/0.5/scene1.atlas", compressible);
+		write("sounds/step.ogg", random);
+		write("images/excluded.png", random);
+	}
+
+	@After
+	public void tearDown() {
+		if (archive != null)
+			archive.close();
+	}
+
+	@Test
+	public void packAndRead() throws IOException {
+		List<String> packed = AssetArchive.pack(assets, Arrays.asList("1", "0.5"), dest,
+				Collections.singleton("images/excluded.png"));
+
+		Collections.sort(packed);
+		assertEquals(Arrays.asList("atlases/0.5/scene1.atlas", "atlases/1/scene1.atlas", "atlases/1/scene1.png",
+				"model/big.json", "model/scene1.json"), packed);
+
+		// one archive per resolution
+		assertTrue(new File(dest, AssetArchive.RES_FILENAME_PREFIX + "1" + AssetArchive.EXT).isFile());
+		assertTrue(new File(dest, AssetArchive.RES_FILENAME_PREFIX + "0.5" + AssetArchive.EXT).isFile());
+
+		archive = AssetArchive.open(new FileHandle(new File(dest, AssetArchive.FILENAME)));
+
+		assertArrayEquals(text, read("model/scene1.json"));
+		assertArrayEquals(compressible, read("model/big.json"));
+		assertArrayEquals(text, read("atlases/1/scene1.atlas"));
+		assertArrayEquals(random, read("atlases/1/scene1.png"));
+		assertArrayEquals(compressible, read("atlases/0.5/scene1.atlas"));
+
+		// the same entry can be read several times
+		assertArrayEquals(random, read("atlases/1/scene1.png"));
+
+		assertEquals(compressible.length, archive.length("model/big.json"));
+	}
+
+	@Test
+	public void notPacked() throws IOException {
+		AssetArchive.pack(assets, Arrays.asList("1", "0.5"), dest, Collections.singleton("images/excluded.png"));
+		archive = AssetArchive.open(new FileHandle(new File(dest, AssetArchive.FILENAME)));
+
+		assertFalse(archive.contains("BladeEngine.properties"));
+		assertFalse(archive.contains("sounds/step.ogg"));
+		assertFalse(archive.contains("images/excluded.png"));
+		assertFalse(archive.contains("images"));
+	}
+
+	@Test
+	public void directories() throws IOException {
+		AssetArchive.pack(assets, Arrays.asList("1", "0.5"), dest, Collections.<String> emptyList());
+		archive = AssetArchive.open(new FileHandle(new File(dest, AssetArchive.FILENAME)));
+
+		assertTrue(archive.isDirectory("atlases"));
+		assertTrue(archive.isDirectory("atlases/1"));
+		assertFalse(archive.isFile("atlases/1"));
+		assertTrue(archive.isFile("images/excluded.png"));
+
+		assertArrayEquals(new String[] { "atlases", "images", "model" }, archive.list(""));
+		assertArrayEquals(new String[] { "0.5", "1" }, archive.list("atlases"));
+		assertArrayEquals(new String[] { "scene1.atlas", "scene1.png" }, archive.list("atlases/1"));
+		assertEquals(0, archive.list("sounds").length);
+	}
+
+	@Test
+	public void normalize() {
+		assertEquals("model/scene1.json", AssetArchive.normalize("/model/scene1.json"));
+		assertEquals("model/scene1.json", AssetArchive.normalize("./model\\scene1.json"));
+		assertEquals("atlases/1", AssetArchive.normalize("atlases/1/"));
+	}
+
+	private void write(String path, byte[] data) {
+		new FileHandle(new File(assets, path)).writeBytes(data, false);
+	}
+
+	private byte[] read(String path) throws IOException {
+		InputStream in = archive.read(path);
+
+		try {
+			return StreamUtils.copyStreamToByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.bladecoder.engine.assets.EngineAssetManager;
+
+public class SoundManagerTest {
+	private static final String STEP = "step.ogg";
+	private static final String DOOR = "door.ogg";
+
+	private SoundManager sm;
+
+	@BeforeClass
+	public static void init() {
+		// the headless backend creates mock sounds without reading the files
+		new HeadlessApplication(new ApplicationAdapter() {
+		});
+	}
+
+	@AfterClass
+	public static void exit() {
+		EngineAssetManager.getInstance().clear();
+		Gdx.app.exit();
+	}
+
+	@Before
+	public void setUp() {
+		sm = new SoundManager();
+	}
+
+	@Test
+	public void sharedLoad() {
+		sm.load(STEP);
+		sm.load(STEP);
+		sm.load(DOOR);
+
+		assertEquals(2, sm.getLoadedCount());
+
+		EngineAssetManager.getInstance().finishLoading();
+
+		assertNotNull(sm.retrieve(STEP));
+		assertTrue(sm.isLoaded(DOOR));
+
+		sm.dispose();
+
+		assertEquals(0, sm.getLoadedCount());
+		assertNull(sm.retrieve(STEP));
+	}
+
+	@Test
+	public void disposedWhenNotReferenced() {
+		sm.load(STEP);
+		sm.load(STEP);
+		EngineAssetManager.getInstance().finishLoading();
+
+		sm.release(STEP);
+		sm.update(SoundManager.DISPOSE_DELAY * 2);
+
+		assertTrue(sm.isLoaded(STEP));
+
+		sm.release(STEP);
+		sm.update(SoundManager.DISPOSE_DELAY / 2);
+
+		// kept loaded during the delay
+		assertEquals(1, sm.getLoadedCount());
+		assertTrue(sm.isLoaded(STEP));
+
+		sm.update(SoundManager.DISPOSE_DELAY);
+
+		assertEquals(0, sm.getLoadedCount());
+		assertFalse(sm.isLoaded(STEP));
+	}
+
+	@Test
+	public void reloadedDuringTheDelay() {
+		sm.load(STEP);
+		EngineAssetManager.getInstance().finishLoading();
+
+		sm.release(STEP);
+		sm.update(SoundManager.DISPOSE_DELAY / 2);
+		sm.load(STEP);
+		sm.update(SoundManager.DISPOSE_DELAY * 2);
+
+		assertTrue(sm.isLoaded(STEP));
+
+		sm.dispose();
+	}
+
+	@Test
+	public void extraReleasesAreIgnored() {
+		sm.load(STEP);
+		sm.release(STEP);
+		sm.release(STEP);
+		sm.release(DOOR);
+
+		sm.load(STEP);
+		sm.update(SoundManager.DISPOSE_DELAY * 2);
+
+		assertEquals(1, sm.getLoadedCount());
+
+		sm.dispose();
+	}
+
+	@Test
+	public void playNotLoaded() {
+		assertEquals(-1, sm.play(STEP, false, 1, 0));
+
+		sm.load(STEP);
+
+		assertEquals(-1, sm.play(STEP, false, 1, 0));
+
+		sm.dispose();
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.Json;
+
+public class StateBaselineTest {
+
+	/** Records the names of the written values */
+	private static class RecordingJson extends Json {
+		final List<String> written = new ArrayList<String>();
+
+		@Override
+		public void writeValue(String name, Object value) {
+			written.add(name);
+		}
+	}
+
+	private StateBaseline baseline;
+	private Scene scene;
+	private SpriteActor a1;
+	private SpriteActor a2;
+
+	@Before
+	public void setUp() {
+		baseline = new StateBaseline();
+
+		scene = new Scene();
+		scene.setId("scene1");
+
+		a1 = createActor("a1");
+		a2 = createActor("a2");
+	}
+
+	@Test
+	public void unchangedScene() {
+		baseline.capture(scene);
+
+		assertFalse(baseline.isChanged(scene));
+		assertEquals(0, write().size());
+	}
+
+	@Test
+	public void changedActor() {
+		baseline.capture(scene);
+		baseline.actorChanged(scene, a2);
+
+		assertTrue(baseline.isChanged(scene));
+
+		List<String> written = write();
+		assertEquals(1, written.size());
+		assertEquals("scene1#a2", written.get(0));
+	}
+
+	@Test
+	public void changedHeader() {
+		baseline.capture(scene);
+		baseline.headerChanged(scene);
+
+		assertTrue(baseline.isChanged(scene));
+		assertEquals(0, write().size());
+	}
+
+	@Test
+	public void changedScene() {
+		baseline.capture(scene);
+		baseline.sceneChanged(scene);
+		baseline.actorChanged(scene, a1);
+
+		assertTrue(baseline.isChanged(scene));
+		assertEquals(2, write().size());
+	}
+
+	@Test
+	public void untrackedScene() {
+		// the actors of the scenes not read from the model are all written
+		baseline.actorChanged(scene, a1);
+
+		assertEquals(2, write().size());
+	}
+
+	@Test
+	public void recapture() {
+		baseline.capture(scene);
+		baseline.actorChanged(scene, a1);
+		baseline.capture(scene);
+
+		assertFalse(baseline.isChanged(scene));
+	}
+
+	private List<String> write() {
+		RecordingJson json = new RecordingJson();
+
+		baseline.writeActor(json, scene, a1);
+		baseline.writeActor(json, scene, a2);
+
+		return json.written;
+	}
+
+	private static SpriteActor createActor(String id) {
+		SpriteActor a = new SpriteActor();
+		a.setId(id);
+		a.setInitScene("scene1");
+
+		return a;
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+
+public class BinaryJsonTest {
+	private static final String JSON = "{\"id\":\"scene1\",\"count\":3,\"negative\":-70000,\"big\":9007199254740993,"
+			+ "\"x\":1.5,\"y\":0.1,\"visible\":true,\"hidden\":false,\"nothing\":null,"
+			+ "\"text\":\"ñandú \\\"quoted\\\" 日本\",\"empty\":\"\","
+			+ "\"actors\":[{\"id\":\"a\",\"layer\":\"foreground\"},{\"id\":\"b\",\"layer\":\"foreground\"}],"
+			+ "\"nested\":{\"list\":[1,2.25,\"foreground\",[],{}]}}";
+
+	public static class Bean {
+		public String name;
+		public int count;
+		public float scale;
+		public long time;
+		public boolean enabled;
+		public String[] tags;
+		public Bean child;
+	}
+
+	@Test
+	public void roundTripJsonValue() throws IOException {
+		JsonValue v = new JsonReader().parse(JSON);
+
+		JsonValue result = read(write(v, false));
+
+		assertEquals(v.toJson(OutputType.json), result.toJson(OutputType.json));
+	}
+
+	@Test
+	public void roundTripNarrowDoubles() throws IOException {
+		JsonValue v = new JsonReader().parse(JSON);
+
+		JsonValue result = read(write(v, true));
+
+		assertEquals(1.5, result.getDouble("x"), 0);
+		assertEquals((float) 0.1, result.getFloat("y"), 0);
+		assertEquals(9007199254740993L, result.getLong("big"));
+		assertEquals(-70000, result.getInt("negative"));
+	}
+
+	@Test
+	public void roundTripSerializer() throws IOException {
+		Bean b = new Bean();
+		b.name = "root";
+		b.count = -5;
+		b.scale = 0.75f;
+		b.time = Long.MAX_VALUE;
+		b.enabled = true;
+		b.tags = new String[] { "root", "tag", "root" };
+		b.child = new Bean();
+		b.child.name = "child";
+
+		Json json = new Json();
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		json.toJson(b, Bean.class, null, new BinaryJsonWriter(bos));
+
+		Bean result = json.readValue(Bean.class, read(bos.toByteArray()));
+
+		assertEquals(json.toJson(b), json.toJson(result));
+		assertNull(result.child.child);
+	}
+
+	@Test
+	public void isBinary() throws IOException {
+		byte[] binary = write(new JsonReader().parse(JSON), false);
+
+		assertTrue(BinaryJsonReader.isBinary(new ByteArrayInputStream(binary)));
+		assertFalse(BinaryJsonReader.isBinary(new ByteArrayInputStream(JSON.getBytes("UTF-8"))));
+
+		// the stream is not consumed
+		InputStream is = new ByteArrayInputStream(binary);
+		BinaryJsonReader.isBinary(is);
+		assertEquals(BinaryJsonWriter.MAGIC[0], is.read());
+	}
+
+	@Test
+	public void repeatedStringsAreShared() throws IOException {
+		StringBuilder sb = new StringBuilder("[");
+
+		for (int i = 0; i < 100; i++)
+			sb.append(i > 0 ? "," : "").append("{\"layer\":\"foreground\"}");
+
+		sb.append(']');
+
+		String json = sb.toString();
+		byte[] binary = write(new JsonReader().parse(json), false);
+
+		assertTrue(binary.length < json.length() / 4);
+		assertEquals(json, read(binary).toJson(OutputType.json));
+	}
+
+	private static byte[] write(JsonValue v, boolean narrowDoubles) throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		BinaryJsonWriter w = new BinaryJsonWriter(bos);
+
+		w.setNarrowDoubles(narrowDoubles);
+		w.write(v);
+		w.close();
+
+		return bos.toByteArray();
+	}
+
+	private static JsonValue read(byte[] data) {
+		return new BinaryJsonReader().parse(new ByteArrayInputStream(data));
+	}
+}
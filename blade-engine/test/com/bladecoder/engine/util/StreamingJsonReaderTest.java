@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package com.bladecoder.engine.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter.OutputType;
+import com.bladecoder.engine.util.StreamingJsonReader.MemberListener;
+
+public class StreamingJsonReaderTest {
+
+	private static class Collector implements MemberListener {
+		final LinkedHashMap<String, String> members = new LinkedHashMap<String, String>();
+
+		@Override
+		public void member(String name, String json) {
+			members.put(name, json);
+		}
+	}
+
+	@Test
+	public void streamsTheMembers() throws IOException {
+		String json = "{\"version\":2,\"scenes\":{\"s1\":{\"id\":\"s1\",\"actors\":[1,2]},"
+				+ "\"s2\":{\"id\":\"s2\",\"text\":\"} { ] [ \\\" ,\"}},\"initScene\":\"s1\"}";
+
+		Collector c = new Collector();
+		JsonValue root = new StreamingJsonReader().parse(new StringReader(json), "scenes", c);
+
+		assertNull(root.get("scenes"));
+		assertEquals(2, root.getInt("version"));
+		assertEquals("s1", root.getString("initScene"));
+
+		assertEquals(2, c.members.size());
+		assertEquals("{\"id\":\"s1\",\"actors\":[1,2]}", normalize(c.members.get("s1")));
+		assertEquals("} { ] [ \" ,", new JsonReader().parse(c.members.get("s2")).getString("text"));
+	}
+
+	@Test
+	public void javascriptOutputType() throws IOException {
+		String json = "{\n\tversion: 2,\n\tscenes: {\n\t\ts1: {\n\t\t\tid: s1,\n\t\t\tdesc: \"it's {here}\"\n\t\t},\n"
+				+ "\t\t\"s 2\": {\n\t\t\tid: \"s 2\"\n\t\t}\n\t},\n\tinitScene: s1\n}";
+
+		Collector c = new Collector();
+		JsonValue root = new StreamingJsonReader().parse(new StringReader(json), "scenes", c);
+
+		assertEquals("s1", root.getString("initScene"));
+		assertEquals(2, c.members.size());
+		assertEquals("it's {here}", new JsonReader().parse(c.members.get("s1")).getString("desc"));
+		assertEquals("s 2", new JsonReader().parse(c.members.get("s 2")).getString("id"));
+	}
+
+	@Test
+	public void noStreamedMember() throws IOException {
+		String json = "{\"a\":[1,{\"b\":\"c\"}],\"d\":null}";
+
+		Collector c = new Collector();
+		JsonValue root = new StreamingJsonReader().parse(new StringReader(json), "scenes", c);
+
+		assertEquals(0, c.members.size());
+		assertEquals(normalize(json), root.toJson(OutputType.json));
+	}
+
+	@Test
+	public void bigMembers() throws IOException {
+		// bigger than the reader buffer
+		StringBuilder sb = new StringBuilder("{\"scenes\":{");
+
+		for (int i = 0; i < 200; i++) {
+			sb.append(i > 0 ? "," : "").append("\"s").append(i).append("\":{\"text\":\"");
+
+			for (int j = 0; j < 100; j++)
+				sb.append("\\\"").append(j);
+
+			sb.append("\"}");
+		}
+
+		sb.append("}}");
+
+		Collector c = new Collector();
+		new StreamingJsonReader().parse(new StringReader(sb.toString()), "scenes", c);
+
+		JsonValue expected = new JsonReader().parse(sb.toString()).get("scenes");
+
+		assertEquals(200, c.members.size());
+
+		for (JsonValue s = expected.child; s != null; s = s.next)
+			assertEquals(s.getString("text"), new JsonReader().parse(c.members.get(s.name)).getString("text"));
+	}
+
+	private static String normalize(String json) {
+		return new JsonReader().parse(json).toJson(OutputType.json);
+	}
+}